@@ -11,6 +11,7 @@ plugins {
     id("org.jetbrains.changelog") version "2.2.0"
     id("org.jetbrains.qodana") version "0.1.13"
     id("org.jetbrains.kotlinx.kover") version "0.7.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = properties("pluginGroup").get()
@@ -49,6 +50,28 @@ dependencies {
     testImplementation("org.mockito:mockito-core:5.6.0")
 }
 
+// 基準測試直接呼叫服務層，執行時也需要平台類別（ProgressIndicator、設定狀態等）
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.compileOnly.get())
+    }
+}
+
+// 配置 JMH 基準測試
+// 基準測試位於 src/jmh，以 UnboundID 的 InMemoryDirectoryServer 在本機建立 1 萬、10 萬與 100 萬筆的合成目錄，不需要外部伺服器
+// 執行：./gradlew jmh（可用 -PjmhIncludes=DirectoryServiceBenchmark 只執行部分項目），結果輸出為 JSON 供回歸比較
+jmh {
+    jmhVersion = "1.37"
+    includes = properties("jmhIncludes").map { it.split(',').map(String::trim).filter(String::isNotEmpty) }.orElse(emptyList())
+    fork = 1
+    warmupIterations = 2
+    iterations = 5
+    // 100 萬筆的合成目錄需要數 GB 記憶體
+    jvmArgs = listOf("-Xms2g", "-Xmx8g")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+}
+
 // 配置 Gradle IntelliJ Plugin
 // 詳細資訊請參閱 https://plugins.jetbrains.com/docs/intellij/tools-gradle-intellij-plugin.html
 intellij {
@@ -0,0 +1,138 @@
+package com.ldapplugin.benchmark;
+
+import com.ldapplugin.model.LdapConnection;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基準測試用的合成目錄
+ * 在本機啟動 InMemoryDirectoryServer，結構為 dc=example,dc=com / ou=units / ou=unit-NNNNN / uid=user-N，
+ * 每個單位 1000 位使用者；不需要外部伺服器或網路
+ */
+public final class SyntheticDirectory implements AutoCloseable {
+
+    public static final String BASE_DN = "dc=example,dc=com";
+    public static final String UNITS_DN = "ou=units," + BASE_DN;
+    public static final String BIND_DN = "cn=Directory Manager";
+    public static final String PASSWORD = "password";
+    public static final int USERS_PER_UNIT = 1000;
+
+    private static final int ADD_BATCH_SIZE = 10_000;
+
+    private final InMemoryDirectoryServer server;
+    private final int entryCount;
+    private final int unitCount;
+
+    private SyntheticDirectory(InMemoryDirectoryServer server, int entryCount, int unitCount) {
+        this.server = server;
+        this.entryCount = entryCount;
+        this.unitCount = unitCount;
+    }
+
+    /**
+     * 啟動伺服器並建立約 entryCount 位使用者
+     */
+    public static SyntheticDirectory start(int entryCount) throws LDAPException {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.addAdditionalBindCredentials(BIND_DN, PASSWORD);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        // 不檢查結構描述、不產生操作屬性也不保留變更記錄，加快大量載入
+        config.setSchema(null);
+        config.setGenerateOperationalAttributes(false);
+        config.setMaxChangeLogEntries(0);
+        config.setEqualityIndexAttributes("uid", "objectClass");
+
+        InMemoryDirectoryServer server = new InMemoryDirectoryServer(config);
+        int unitCount = Math.max(1, (entryCount + USERS_PER_UNIT - 1) / USERS_PER_UNIT);
+        seed(server, entryCount, unitCount);
+        server.startListening();
+        return new SyntheticDirectory(server, entryCount, unitCount);
+    }
+
+    private static void seed(InMemoryDirectoryServer server, int entryCount, int unitCount) throws LDAPException {
+        List<Entry> batch = new ArrayList<>(ADD_BATCH_SIZE);
+        batch.add(new Entry(BASE_DN,
+                new Attribute("objectClass", "top", "domain"),
+                new Attribute("dc", "example")));
+        batch.add(organizationalUnit(UNITS_DN, "units"));
+
+        for (int unit = 0; unit < unitCount; unit++) {
+            batch.add(organizationalUnit(unitDn(unit), unitName(unit)));
+            int first = unit * USERS_PER_UNIT;
+            int last = Math.min(entryCount, first + USERS_PER_UNIT);
+            for (int user = first; user < last; user++) {
+                batch.add(user(unit, user));
+                if (batch.size() >= ADD_BATCH_SIZE) {
+                    server.addEntries(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            server.addEntries(batch);
+        }
+    }
+
+    public static Entry organizationalUnit(String dn, String name) {
+        return new Entry(dn,
+                new Attribute("objectClass", "top", "organizationalUnit"),
+                new Attribute("ou", name));
+    }
+
+    public static Entry user(int unit, int user) {
+        String uid = userId(user);
+        return new Entry("uid=" + uid + "," + unitDn(unit),
+                new Attribute("objectClass", "top", "person", "organizationalPerson", "inetOrgPerson"),
+                new Attribute("uid", uid),
+                new Attribute("cn", "User " + user),
+                new Attribute("sn", "User"),
+                new Attribute("givenName", "Synthetic"),
+                new Attribute("mail", uid + "@example.com"),
+                new Attribute("employeeNumber", Integer.toString(user)),
+                new Attribute("departmentNumber", Integer.toString(user % 50)),
+                new Attribute("description", "Synthetic benchmark user " + user + " in " + unitName(unit)));
+    }
+
+    public static String unitName(int unit) {
+        return String.format("unit-%05d", unit);
+    }
+
+    public static String unitDn(int unit) {
+        return "ou=" + unitName(unit) + "," + UNITS_DN;
+    }
+
+    public static String userId(int user) {
+        return "user-" + user;
+    }
+
+    /**
+     * 建立連到此目錄的連線設定（尚未連線）
+     */
+    public LdapConnection newConnection(String name) {
+        return new LdapConnection(name, "localhost", server.getListenPort(), BIND_DN, PASSWORD, false, BASE_DN);
+    }
+
+    public InMemoryDirectoryServer getServer() {
+        return server;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    @Override
+    public void close() {
+        server.shutDown(true);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.benchmark.SyntheticDirectory;
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.settings.LdapSettingsState;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 連線服務的瀏覽與搜尋基準測試
+ * 每次呼叫前清除服務的快取並隨機選擇目標，量測的是實際向伺服器查詢的成本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryServiceBenchmark {
+
+    private static final String CONNECTION_NAME = "benchmark";
+
+    @Param({"10000", "100000", "1000000"})
+    public int entryCount;
+
+    private SyntheticDirectory directory;
+    private LdapConnectionServiceImpl service;
+    private String unitDn;
+    private String uidFilter;
+
+    @Setup(Level.Trial)
+    public void startDirectory() throws LDAPException {
+        directory = SyntheticDirectory.start(entryCount);
+        service = new LdapConnectionServiceImpl(new LdapSettingsState());
+        LdapConnection connection = directory.newConnection(CONNECTION_NAME);
+        service.addConnection(connection);
+        service.connect(CONNECTION_NAME);
+    }
+
+    @Setup(Level.Invocation)
+    public void pickTarget() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        unitDn = SyntheticDirectory.unitDn(random.nextInt(directory.getUnitCount()));
+        uidFilter = "(uid=" + SyntheticDirectory.userId(random.nextInt(directory.getEntryCount())) + ")";
+        service.dropCaches(CONNECTION_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDirectory() {
+        service.removeConnection(CONNECTION_NAME);
+        directory.close();
+    }
+
+    /**
+     * 展開一個有 1000 個子條目的單位
+     */
+    @Benchmark
+    public List<Entry> getChildrenOfUnit() throws LDAPException {
+        return service.getChildren(CONNECTION_NAME, unitDn);
+    }
+
+    /**
+     * 展開包含所有單位的節點，子條目數隨目錄大小成長
+     */
+    @Benchmark
+    public List<Entry> getChildrenOfUnits() throws LDAPException {
+        return service.getChildren(CONNECTION_NAME, SyntheticDirectory.UNITS_DN);
+    }
+
+    /**
+     * 以索引屬性在整個目錄中搜尋單一使用者
+     */
+    @Benchmark
+    public SearchResult searchByUid() throws LDAPException {
+        return service.search(CONNECTION_NAME, SyntheticDirectory.BASE_DN, uidFilter);
+    }
+
+    /**
+     * 以未索引的屬性搜尋整個目錄，符合的條目以串流方式逐筆處理
+     */
+    @Benchmark
+    public long searchStreamingByDepartment() throws LDAPException {
+        return service.searchStreaming(CONNECTION_NAME, SyntheticDirectory.BASE_DN, SearchScope.SUB,
+                "(departmentNumber=7)", entry -> true, "uid", "cn");
+    }
+}
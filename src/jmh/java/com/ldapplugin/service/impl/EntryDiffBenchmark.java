@@ -0,0 +1,72 @@
+package com.ldapplugin.service.impl;
+
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.Modification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * modifyEntry 差異計算的基準測試
+ * 以大型群組的 member 屬性為例：修改後的條目換掉一位成員，或只是值的順序被打亂
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntryDiffBenchmark {
+
+    private static final String GROUP_DN = "cn=all-users,ou=groups,dc=example,dc=com";
+
+    @Param({"1000", "40000"})
+    public int memberCount;
+
+    private Entry original;
+    private Entry oneMemberReplaced;
+    private Entry reordered;
+
+    @Setup
+    public void createGroups() {
+        List<String> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            members.add("uid=user-" + i + ",ou=unit-" + (i / 1000) + ",ou=units,dc=example,dc=com");
+        }
+        original = group(members);
+
+        List<String> replaced = new ArrayList<>(members);
+        replaced.set(memberCount / 2, "uid=new-user,ou=units,dc=example,dc=com");
+        oneMemberReplaced = group(replaced);
+
+        List<String> shuffled = new ArrayList<>(members);
+        Collections.shuffle(shuffled, new Random(42));
+        reordered = group(shuffled);
+    }
+
+    private static Entry group(List<String> members) {
+        return new Entry(GROUP_DN,
+                new Attribute("objectClass", "top", "groupOfNames"),
+                new Attribute("cn", "all-users"),
+                new Attribute("member", members));
+    }
+
+    @Benchmark
+    public List<Modification> diffOneMemberReplaced() {
+        return EntryDiffEngine.diff(original, oneMemberReplaced, null);
+    }
+
+    @Benchmark
+    public List<Modification> diffReordered() {
+        return EntryDiffEngine.diff(original, reordered, null);
+    }
+}
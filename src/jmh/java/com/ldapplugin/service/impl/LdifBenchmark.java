@@ -0,0 +1,111 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.benchmark.SyntheticDirectory;
+import com.ldapplugin.service.LdifImportResult;
+import com.ldapplugin.settings.LdapSettingsState;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldif.LDIFWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LDIF 匯出與匯入的基準測試
+ * 匯出整個合成目錄；匯入固定 10000 筆新條目到 ou=import，每次匯入前清空該分支
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LdifBenchmark {
+
+    private static final String CONNECTION_NAME = "benchmark";
+    private static final String IMPORT_DN = "ou=import," + SyntheticDirectory.BASE_DN;
+    private static final int IMPORT_ENTRY_COUNT = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entryCount;
+
+    @Param({"false", "true"})
+    public boolean compress;
+
+    private SyntheticDirectory directory;
+    private LdapConnectionServiceImpl service;
+    private Path workDir;
+    private Path exportFile;
+    private Path importFile;
+
+    @Setup(Level.Trial)
+    public void startDirectory() throws LDAPException, IOException {
+        directory = SyntheticDirectory.start(entryCount);
+        service = new LdapConnectionServiceImpl(new LdapSettingsState());
+        service.addConnection(directory.newConnection(CONNECTION_NAME));
+        service.connect(CONNECTION_NAME);
+
+        workDir = Files.createTempDirectory("ldap-ldif-benchmark");
+        String extension = compress ? ".ldif.gz" : ".ldif";
+        exportFile = workDir.resolve("export" + extension);
+        importFile = workDir.resolve("import" + extension);
+        writeImportFile(importFile, compress);
+    }
+
+    private static void writeImportFile(Path file, boolean compress) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (compress) {
+            out = new GZIPOutputStream(out);
+        }
+        try (LDIFWriter writer = new LDIFWriter(out)) {
+            for (int i = 0; i < IMPORT_ENTRY_COUNT; i++) {
+                String uid = "import-" + i;
+                writer.writeEntry(new Entry("uid=" + uid + "," + IMPORT_DN,
+                        new Attribute("objectClass", "top", "person", "organizationalPerson", "inetOrgPerson"),
+                        new Attribute("uid", uid),
+                        new Attribute("cn", "Imported " + i),
+                        new Attribute("sn", "Imported"),
+                        new Attribute("mail", uid + "@example.com")));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetImportBranch() throws LDAPException {
+        directory.getServer().deleteSubtree(IMPORT_DN);
+        directory.getServer().addEntries(SyntheticDirectory.organizationalUnit(IMPORT_DN, "import"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDirectory() throws IOException {
+        service.removeConnection(CONNECTION_NAME);
+        directory.close();
+        Files.deleteIfExists(exportFile);
+        Files.deleteIfExists(importFile);
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public long exportDirectory() throws LDAPException, IOException {
+        return service.exportLdif(CONNECTION_NAME, SyntheticDirectory.UNITS_DN, SearchScope.SUB,
+                "(objectClass=*)", exportFile, compress, null);
+    }
+
+    @Benchmark
+    public LdifImportResult importEntries() throws LDAPException, IOException {
+        return service.importLdif(CONNECTION_NAME, importFile, null);
+    }
+}
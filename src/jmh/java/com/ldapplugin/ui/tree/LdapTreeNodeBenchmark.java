@@ -0,0 +1,58 @@
+package com.ldapplugin.ui.tree;
+
+import com.ldapplugin.benchmark.SyntheticDirectory;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 樹狀節點建立的基準測試
+ * 以瀏覽樹時取回的屬性建立一頁子節點，與工具視窗展開節點時的處理相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LdapTreeNodeBenchmark {
+
+    @Param({"500", "2000"})
+    public int childCount;
+
+    private List<Entry> entries;
+
+    @Setup
+    public void createEntries() {
+        entries = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            String uid = SyntheticDirectory.userId(i);
+            entries.add(new Entry("uid=" + uid + "," + SyntheticDirectory.unitDn(0),
+                    new Attribute("objectClass", "top", "person", "organizationalPerson", "inetOrgPerson"),
+                    new Attribute("uid", uid),
+                    new Attribute("cn", "User " + i),
+                    new Attribute("hasSubordinates", "FALSE")));
+        }
+    }
+
+    @Benchmark
+    public LdapTreeNode createChildNodes() {
+        LdapTreeNode parent = LdapTreeNode.createRootNode(SyntheticDirectory.unitDn(0));
+        for (Entry entry : entries) {
+            LdapTreeNode child = new LdapTreeNode(entry.getDN(), entry);
+            if (child.isExpandable()) {
+                child.add(LdapTreeNode.createPlaceholder());
+            }
+            parent.add(child);
+        }
+        return parent;
+    }
+}
@@ -1,28 +1,87 @@
 package com.ldapplugin.model;
 
+import com.unboundid.ldap.sdk.BindRequest;
+import com.unboundid.ldap.sdk.FailoverServerSet;
+import com.unboundid.ldap.sdk.FastestConnectServerSet;
+import com.unboundid.ldap.sdk.GetEntryLDAPConnectionPoolHealthCheck;
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionLogger;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPConnectionPoolHealthCheck;
 import com.unboundid.ldap.sdk.LDAPException;
-
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.RoundRobinServerSet;
+import com.unboundid.ldap.sdk.ServerSet;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import com.unboundid.ldap.sdk.SingleServerSet;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * LDAP 連線模型類
  */
 public class LdapConnection {
+    public static final int DEFAULT_INITIAL_POOL_SIZE = 1;
+    public static final int DEFAULT_MAX_POOL_SIZE = 4;
+    public static final long DEFAULT_MAX_CONNECTION_AGE_MILLIS = 30 * 60 * 1000L;
+    public static final long DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS = 60 * 1000L;
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int DEFAULT_MAX_CHILDREN_PER_NODE = 2000;
+    public static final int DEFAULT_PREFETCH_CHILD_COUNT = 5;
+    public static final int DEFAULT_PREFETCH_CONCURRENCY = 2;
+    public static final int DEFAULT_BULK_MAX_IN_FLIGHT = 64;
+    public static final long DEFAULT_SLOW_OPERATION_THRESHOLD_MILLIS = 0L;
+    public static final int DEFAULT_SLOW_OPERATION_SAMPLE_RATE = 1;
+    public static final long DEFAULT_READ_YOUR_WRITES_WINDOW_MILLIS = 5000L;
+
+    // 健康檢查讀取 Root DSE 的最長等待時間
+    private static final long HEALTH_CHECK_MAX_RESPONSE_TIME_MILLIS = 5000L;
+    // 容錯移轉到備援伺服器的連線存活時間，到期後重新由主要伺服器開始嘗試
+    private static final long FAILOVER_CONNECTION_MAX_AGE_MILLIS = 5 * 60 * 1000L;
+
     private String name;
     private String host;
     private int port;
+    private List<String> additionalServers = new ArrayList<>();
+    private LdapServerSelection serverSelection = LdapServerSelection.FAILOVER;
+    private boolean readWriteSplit;
+    private long readYourWritesWindowMillis = DEFAULT_READ_YOUR_WRITES_WINDOW_MILLIS;
     private String bindDn;
     private String password;
     private boolean useSSL;
     private String baseDn;
+    private boolean usePool;
+    private int initialPoolSize;
+    private int maxPoolSize;
+    private long maxConnectionAgeMillis;
+    private long healthCheckIntervalMillis;
+    private int pageSize;
+    private boolean liveUpdates;
+    private int maxChildrenPerNode;
+    private boolean prefetchEnabled;
+    private int prefetchChildCount;
+    private int prefetchConcurrency;
+    private int bulkMaxInFlight;
+    private long slowOperationThresholdMillis;
+    private int slowOperationSampleRate;
+    private LDAPConnectionLogger connectionLogger;
     private LDAPConnection connection;
+    private LDAPConnectionPool connectionPool;
+    private LDAPConnectionPool readConnectionPool;
+    private AsyncConnectionLease asyncConnections;
+    private AsyncConnectionLease readAsyncConnections;
     private boolean connected;
 
     public LdapConnection() {
         this.port = 389; // 預設 LDAP 端口
         this.useSSL = false;
         this.connected = false;
+        applyDefaultPoolSettings();
     }
 
     public LdapConnection(String name, String host, int port, String bindDn, String password, boolean useSSL, String baseDn) {
@@ -34,6 +93,22 @@ public class LdapConnection {
         this.useSSL = useSSL;
         this.baseDn = baseDn;
         this.connected = false;
+        applyDefaultPoolSettings();
+    }
+
+    private void applyDefaultPoolSettings() {
+        this.usePool = true;
+        this.initialPoolSize = DEFAULT_INITIAL_POOL_SIZE;
+        this.maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+        this.maxConnectionAgeMillis = DEFAULT_MAX_CONNECTION_AGE_MILLIS;
+        this.healthCheckIntervalMillis = DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS;
+        this.pageSize = DEFAULT_PAGE_SIZE;
+        this.maxChildrenPerNode = DEFAULT_MAX_CHILDREN_PER_NODE;
+        this.prefetchChildCount = DEFAULT_PREFETCH_CHILD_COUNT;
+        this.prefetchConcurrency = DEFAULT_PREFETCH_CONCURRENCY;
+        this.bulkMaxInFlight = DEFAULT_BULK_MAX_IN_FLIGHT;
+        this.slowOperationThresholdMillis = DEFAULT_SLOW_OPERATION_THRESHOLD_MILLIS;
+        this.slowOperationSampleRate = DEFAULT_SLOW_OPERATION_SAMPLE_RATE;
     }
 
     // Getters and Setters
@@ -61,6 +136,63 @@ public class LdapConnection {
         this.port = port;
     }
 
+    /**
+     * 主要伺服器以外的其他伺服器，格式為 host 或 host:port；未指定端口時與主要伺服器相同
+     */
+    public List<String> getAdditionalServers() {
+        return additionalServers;
+    }
+
+    public void setAdditionalServers(List<String> additionalServers) {
+        this.additionalServers = additionalServers == null ? new ArrayList<>() : new ArrayList<>(additionalServers);
+    }
+
+    public LdapServerSelection getServerSelection() {
+        return serverSelection;
+    }
+
+    public void setServerSelection(LdapServerSelection serverSelection) {
+        this.serverSelection = serverSelection == null ? LdapServerSelection.FAILOVER : serverSelection;
+    }
+
+    /**
+     * 是否讀寫分離：主要伺服器負責寫入，其他伺服器組成讀取用的連線池
+     * 只在使用連線池且設定了其他伺服器時生效
+     */
+    public boolean isReadWriteSplit() {
+        return readWriteSplit;
+    }
+
+    public void setReadWriteSplit(boolean readWriteSplit) {
+        this.readWriteSplit = readWriteSplit;
+    }
+
+    /**
+     * 讀寫分離時，條目寫入後在此時間（毫秒）內涵蓋它的讀取改由主要伺服器處理，避免讀到尚未複寫的資料；0 表示停用
+     */
+    public long getReadYourWritesWindowMillis() {
+        return readYourWritesWindowMillis;
+    }
+
+    public void setReadYourWritesWindowMillis(long readYourWritesWindowMillis) {
+        this.readYourWritesWindowMillis = readYourWritesWindowMillis;
+    }
+
+    /**
+     * 所有伺服器的位址，第一個為主要伺服器
+     *
+     * @throws IllegalArgumentException 其他伺服器的位址格式錯誤
+     */
+    public List<LdapServerAddress> getServerAddresses() {
+        int defaultPort = getEffectivePort();
+        List<LdapServerAddress> addresses = new ArrayList<>();
+        addresses.add(new LdapServerAddress(host, defaultPort));
+        for (String server : additionalServers) {
+            addresses.add(LdapServerAddress.parse(server, defaultPort));
+        }
+        return addresses;
+    }
+
     public String getBindDn() {
         return bindDn;
     }
@@ -93,6 +225,134 @@ public class LdapConnection {
         this.baseDn = baseDn;
     }
 
+    public boolean isUsePool() {
+        return usePool;
+    }
+
+    public void setUsePool(boolean usePool) {
+        this.usePool = usePool;
+    }
+
+    public int getInitialPoolSize() {
+        return initialPoolSize;
+    }
+
+    public void setInitialPoolSize(int initialPoolSize) {
+        this.initialPoolSize = initialPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public long getMaxConnectionAgeMillis() {
+        return maxConnectionAgeMillis;
+    }
+
+    public void setMaxConnectionAgeMillis(long maxConnectionAgeMillis) {
+        this.maxConnectionAgeMillis = maxConnectionAgeMillis;
+    }
+
+    public long getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    public void setHealthCheckIntervalMillis(long healthCheckIntervalMillis) {
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public boolean isLiveUpdates() {
+        return liveUpdates;
+    }
+
+    public void setLiveUpdates(boolean liveUpdates) {
+        this.liveUpdates = liveUpdates;
+    }
+
+    public int getMaxChildrenPerNode() {
+        return maxChildrenPerNode;
+    }
+
+    public void setMaxChildrenPerNode(int maxChildrenPerNode) {
+        this.maxChildrenPerNode = maxChildrenPerNode;
+    }
+
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    public int getPrefetchChildCount() {
+        return prefetchChildCount;
+    }
+
+    public void setPrefetchChildCount(int prefetchChildCount) {
+        this.prefetchChildCount = prefetchChildCount;
+    }
+
+    public int getPrefetchConcurrency() {
+        return prefetchConcurrency;
+    }
+
+    public void setPrefetchConcurrency(int prefetchConcurrency) {
+        this.prefetchConcurrency = prefetchConcurrency;
+    }
+
+    /**
+     * 批次作業（LDIF 匯入等）同時進行的非同步請求上限
+     */
+    public int getBulkMaxInFlight() {
+        return bulkMaxInFlight;
+    }
+
+    public void setBulkMaxInFlight(int bulkMaxInFlight) {
+        this.bulkMaxInFlight = bulkMaxInFlight;
+    }
+
+    /**
+     * 超過此時間（毫秒）的操作會記入慢速操作紀錄；0 表示停用
+     */
+    public long getSlowOperationThresholdMillis() {
+        return slowOperationThresholdMillis;
+    }
+
+    public void setSlowOperationThresholdMillis(long slowOperationThresholdMillis) {
+        this.slowOperationThresholdMillis = slowOperationThresholdMillis;
+    }
+
+    /**
+     * 超過門檻的操作每 N 筆記錄 1 筆；1 表示全部記錄
+     */
+    public int getSlowOperationSampleRate() {
+        return slowOperationSampleRate;
+    }
+
+    public void setSlowOperationSampleRate(int slowOperationSampleRate) {
+        this.slowOperationSampleRate = slowOperationSampleRate;
+    }
+
+    /**
+     * 設定下次建立連線時掛上的連線記錄器，收到每個請求與回應時都會被呼叫；不會被保存
+     */
+    public void setConnectionLogger(LDAPConnectionLogger connectionLogger) {
+        this.connectionLogger = connectionLogger;
+    }
+
     public LDAPConnection getConnection() {
         return connection;
     }
@@ -101,8 +361,18 @@ public class LdapConnection {
         this.connection = connection;
     }
 
+    public LDAPConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     public boolean isConnected() {
-        return connected && connection != null && connection.isConnected();
+        if (!connected) {
+            return false;
+        }
+        if (connectionPool != null) {
+            return !connectionPool.isClosed();
+        }
+        return connection != null && connection.isConnected();
     }
 
     public void setConnected(boolean connected) {
@@ -113,27 +383,278 @@ public class LdapConnection {
      * 建立 LDAP 連線
      */
     public void connect() throws LDAPException {
-        if (connection != null && connection.isConnected()) {
+        if (isConnected()) {
             return;
         }
 
+        if (usePool) {
+            List<LdapServerAddress> addresses = parseServerAddresses();
+            if (readWriteSplit && addresses.size() > 1) {
+                connectionPool = createConnectionPool(addresses.subList(0, 1), name);
+                try {
+                    readConnectionPool = createConnectionPool(addresses.subList(1, addresses.size()), name + " (讀取)");
+                } catch (LDAPException e) {
+                    connectionPool.close();
+                    connectionPool = null;
+                    throw e;
+                }
+            } else {
+                connectionPool = createConnectionPool(addresses, name);
+            }
+        } else {
+            connection = createServerSet(parseServerAddresses()).getConnection(createHealthCheck());
+
+            if (hasBindDn()) {
+                connection.bind(bindDn, password);
+            }
+        }
+
+        connected = true;
+    }
+
+    /**
+     * 建立連線池，連線依設定的存活時間輪替（歸還時即檢查，不必等背景檢查），並於背景定期以 Root DSE 進行健康檢查
+     * 新連線在建立與驗證後也須通過健康檢查，設定多台伺服器時會略過無法在時限內回應的伺服器
+     */
+    private LDAPConnectionPool createConnectionPool(List<LdapServerAddress> addresses, String poolName) throws LDAPException {
+        int initial = Math.max(1, initialPoolSize);
+        int max = Math.max(initial, maxPoolSize);
+        BindRequest bindRequest = hasBindDn() ? new SimpleBindRequest(bindDn, password) : null;
+
+        LDAPConnectionPool pool = new LDAPConnectionPool(
+                createServerSet(addresses), bindRequest, initial, max, 1, null, true, createHealthCheck());
+        pool.setConnectionPoolName("LDAP Manager - " + poolName);
+        pool.setMaxConnectionAgeMillis(Math.max(0L, maxConnectionAgeMillis));
+        pool.setCheckConnectionAgeOnRelease(true);
+        if (healthCheckIntervalMillis > 0) {
+            pool.setHealthCheckIntervalMillis(healthCheckIntervalMillis);
+        }
+        return pool;
+    }
+
+    /**
+     * 以讀取 Root DSE 檢查伺服器是否正常回應
+     * 建立連線與驗證後都會檢查，接受 TCP 連線但不回應的伺服器在取得連線時即被略過；
+     * 另於背景定期檢查，以及操作發生錯誤後檢查
+     */
+    private static LDAPConnectionPoolHealthCheck createHealthCheck() {
+        return new GetEntryLDAPConnectionPoolHealthCheck(
+                "", HEALTH_CHECK_MAX_RESPONSE_TIME_MILLIS,
+                true, true, false, false, true, true);
+    }
+
+    private List<LdapServerAddress> parseServerAddresses() throws LDAPException {
+        try {
+            return getServerAddresses();
+        } catch (IllegalArgumentException e) {
+            throw new LDAPException(ResultCode.PARAM_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * 依伺服器清單與選擇方式建立伺服器集合；只有一台伺服器時直接連線
+     */
+    private ServerSet createServerSet(List<LdapServerAddress> addresses) {
+        LDAPConnectionOptions options = createConnectionOptions();
+        if (addresses.size() == 1) {
+            return new SingleServerSet(addresses.get(0).getHost(), addresses.get(0).getPort(), options);
+        }
+
+        String[] hosts = new String[addresses.size()];
+        int[] ports = new int[addresses.size()];
+        for (int i = 0; i < addresses.size(); i++) {
+            hosts[i] = addresses.get(i).getHost();
+            ports[i] = addresses.get(i).getPort();
+        }
+        switch (serverSelection) {
+            case FASTEST_CONNECT:
+                return new FastestConnectServerSet(hosts, ports, options);
+            case ROUND_ROBIN:
+                return new RoundRobinServerSet(hosts, ports, options);
+            default:
+                FailoverServerSet failoverSet = new FailoverServerSet(hosts, ports, options);
+                failoverSet.setMaxFailoverConnectionAgeMillis(FAILOVER_CONNECTION_MAX_AGE_MILLIS);
+                return failoverSet;
+        }
+    }
+
+    private LDAPConnectionOptions createConnectionOptions() {
+        LDAPConnectionOptions options = new LDAPConnectionOptions();
+        if (connectionLogger != null) {
+            options.setConnectionLogger(connectionLogger);
+        }
+        return options;
+    }
+
+    private int getEffectivePort() {
         if (useSSL) {
-            connection = new LDAPConnection(host, port == 389 ? 636 : port);
+            return port == 389 ? 636 : port;
+        }
+        return port;
+    }
+
+    private boolean hasBindDn() {
+        return bindDn != null && !bindDn.trim().isEmpty();
+    }
+
+    /**
+     * 取出一條可用連線；連線池模式下使用完畢後須呼叫 {@link #releaseConnection(LDAPConnection)} 歸還
+     */
+    public LDAPConnection checkoutConnection() throws LDAPException {
+        LDAPConnectionPool pool = connectionPool;
+        if (pool != null) {
+            return pool.getConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * 歸還由 {@link #checkoutConnection()} 取得的連線
+     */
+    public void releaseConnection(LDAPConnection ldapConnection) {
+        LDAPConnectionPool pool = connectionPool;
+        if (pool != null && ldapConnection != null) {
+            pool.releaseConnection(ldapConnection);
+        }
+    }
+
+    /**
+     * 歸還已失效的連線，連線池會將其關閉並補上新連線
+     */
+    public void releaseDefunctConnection(LDAPConnection ldapConnection) {
+        LDAPConnectionPool pool = connectionPool;
+        if (pool != null && ldapConnection != null) {
+            pool.releaseDefunctConnection(ldapConnection);
+        }
+    }
+
+    /**
+     * 是否有獨立的讀取連線池（讀寫分離生效中）
+     */
+    public boolean hasReadReplicas() {
+        return readConnectionPool != null;
+    }
+
+    /**
+     * 取出一條讀取用的連線；讀寫分離時來自讀取連線池，否則與 {@link #checkoutConnection()} 相同
+     * 使用完畢後須呼叫 {@link #releaseReadConnection(LDAPConnection)} 歸還
+     */
+    public LDAPConnection checkoutReadConnection() throws LDAPException {
+        LDAPConnectionPool pool = readConnectionPool;
+        if (pool != null) {
+            return pool.getConnection();
+        }
+        return checkoutConnection();
+    }
+
+    /**
+     * 歸還由 {@link #checkoutReadConnection()} 取得的連線
+     */
+    public void releaseReadConnection(LDAPConnection ldapConnection) {
+        LDAPConnectionPool pool = readConnectionPool;
+        if (pool != null && ldapConnection != null) {
+            pool.releaseConnection(ldapConnection);
         } else {
-            connection = new LDAPConnection(host, port);
+            releaseConnection(ldapConnection);
         }
+    }
 
-        if (bindDn != null && !bindDn.trim().isEmpty()) {
-            connection.bind(bindDn, password);
+    /**
+     * 歸還由 {@link #checkoutReadConnection()} 取得、已失效的連線
+     */
+    public void releaseDefunctReadConnection(LDAPConnection ldapConnection) {
+        LDAPConnectionPool pool = readConnectionPool;
+        if (pool != null && ldapConnection != null) {
+            pool.releaseDefunctConnection(ldapConnection);
+        } else {
+            releaseDefunctConnection(ldapConnection);
         }
+    }
 
-        connected = true;
+    /**
+     * 取出供非同步請求管線化使用的連線，請求完成後須呼叫 {@link #releaseAsyncConnection(LDAPConnection, boolean)}
+     * 連線池模式下同時進行的請求共用同一條池連線，最後一個請求完成後即歸還；單一連線模式則直接共用該連線
+     */
+    public LDAPConnection checkoutAsyncConnection() throws LDAPException {
+        AsyncConnectionLease lease;
+        synchronized (this) {
+            if (connectionPool == null) {
+                return connection;
+            }
+            if (asyncConnections == null) {
+                asyncConnections = new AsyncConnectionLease(connectionPool, maxConnectionAgeMillis);
+            }
+            lease = asyncConnections;
+        }
+        return lease.acquire();
+    }
+
+    /**
+     * 非同步請求完成後歸還連線
+     * @param defunct 請求以連線已不可用的結果碼失敗；該連線不再分配給新請求，其上的請求完成後以失效連線歸還
+     */
+    public void releaseAsyncConnection(LDAPConnection ldapConnection, boolean defunct) {
+        AsyncConnectionLease lease;
+        synchronized (this) {
+            lease = asyncConnections;
+        }
+        if (lease != null) {
+            lease.release(ldapConnection, defunct);
+        }
+    }
+
+    /**
+     * 取出供非同步讀取使用的連線；讀寫分離時來自讀取連線池，否則與 {@link #checkoutAsyncConnection()} 相同
+     * 請求完成後須呼叫 {@link #releaseReadAsyncConnection(LDAPConnection, boolean)} 歸還
+     */
+    public LDAPConnection checkoutReadAsyncConnection() throws LDAPException {
+        AsyncConnectionLease lease;
+        synchronized (this) {
+            if (readConnectionPool != null && readAsyncConnections == null) {
+                readAsyncConnections = new AsyncConnectionLease(readConnectionPool, maxConnectionAgeMillis);
+            }
+            lease = readAsyncConnections;
+        }
+        return lease == null ? checkoutAsyncConnection() : lease.acquire();
+    }
+
+    /**
+     * 歸還由 {@link #checkoutReadAsyncConnection()} 取得的連線
+     */
+    public void releaseReadAsyncConnection(LDAPConnection ldapConnection, boolean defunct) {
+        AsyncConnectionLease lease;
+        synchronized (this) {
+            lease = readAsyncConnections;
+        }
+        if (lease == null) {
+            releaseAsyncConnection(ldapConnection, defunct);
+        } else {
+            lease.release(ldapConnection, defunct);
+        }
     }
 
     /**
      * 斷開 LDAP 連線
      */
     public void disconnect() {
+        synchronized (this) {
+            if (asyncConnections != null) {
+                asyncConnections.close();
+                asyncConnections = null;
+            }
+            if (readAsyncConnections != null) {
+                readAsyncConnections.close();
+                readAsyncConnections = null;
+            }
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+        }
+        if (readConnectionPool != null) {
+            readConnectionPool.close();
+            readConnectionPool = null;
+        }
         if (connection != null && connection.isConnected()) {
             connection.close();
         }
@@ -174,4 +695,89 @@ public class LdapConnection {
     public String toString() {
         return name + " (" + host + ":" + port + ")";
     }
+
+    /**
+     * 非同步請求共用的池連線
+     * 連線只在有請求進行時借出，閒置即歸還連線池，存活時間輪替與背景健康檢查因此照常作用；
+     * 超過存活時間或已不可用的連線不再分配給新請求，待其上的請求完成後歸還
+     */
+    private static final class AsyncConnectionLease {
+
+        private final LDAPConnectionPool pool;
+        private final long maxConnectionAgeMillis;
+        private final Map<LDAPConnection, Lease> leases = new IdentityHashMap<>();
+        private Lease current;
+
+        AsyncConnectionLease(LDAPConnectionPool pool, long maxConnectionAgeMillis) {
+            this.pool = pool;
+            this.maxConnectionAgeMillis = maxConnectionAgeMillis;
+        }
+
+        synchronized LDAPConnection acquire() throws LDAPException {
+            if (current != null && (!current.connection.isConnected() || isExpired(current.connection))) {
+                current.retired = true;
+                current = null;
+            }
+            if (current == null) {
+                current = new Lease(pool.getConnection());
+                leases.put(current.connection, current);
+            }
+            current.inFlight++;
+            return current.connection;
+        }
+
+        synchronized void release(LDAPConnection ldapConnection, boolean defunct) {
+            Lease lease = leases.get(ldapConnection);
+            if (lease == null) {
+                return;
+            }
+            lease.inFlight--;
+            if (defunct || !ldapConnection.isConnected()) {
+                lease.defunct = true;
+                lease.retired = true;
+            }
+            if (lease.retired && lease == current) {
+                current = null;
+            }
+            if (lease.inFlight == 0) {
+                leases.remove(ldapConnection);
+                if (lease == current) {
+                    current = null;
+                }
+                returnToPool(lease);
+            }
+        }
+
+        synchronized void close() {
+            for (Lease lease : leases.values()) {
+                returnToPool(lease);
+            }
+            leases.clear();
+            current = null;
+        }
+
+        private boolean isExpired(LDAPConnection ldapConnection) {
+            return maxConnectionAgeMillis > 0
+                    && System.currentTimeMillis() - ldapConnection.getConnectTime() > maxConnectionAgeMillis;
+        }
+
+        private void returnToPool(Lease lease) {
+            if (lease.defunct) {
+                pool.releaseDefunctConnection(lease.connection);
+            } else {
+                pool.releaseConnection(lease.connection);
+            }
+        }
+
+        private static final class Lease {
+            private final LDAPConnection connection;
+            private int inFlight;
+            private boolean retired;
+            private boolean defunct;
+
+            Lease(LDAPConnection connection) {
+                this.connection = connection;
+            }
+        }
+    }
 }
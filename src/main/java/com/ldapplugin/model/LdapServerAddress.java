@@ -0,0 +1,77 @@
+package com.ldapplugin.model;
+
+/**
+ * 伺服器位址（主機與端口）
+ */
+public final class LdapServerAddress {
+
+    private final String host;
+    private final int port;
+
+    public LdapServerAddress(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * 解析 host、host:port 或 [IPv6 位址]:port 格式的位址
+     *
+     * @param defaultPort 未指定端口時使用的端口
+     * @throws IllegalArgumentException 格式錯誤或端口超出範圍
+     */
+    public static LdapServerAddress parse(String text, int defaultPort) {
+        String value = text.trim();
+        String host = value;
+        String portText = null;
+        if (value.startsWith("[")) {
+            int end = value.indexOf(']');
+            if (end < 0) {
+                throw new IllegalArgumentException("伺服器位址格式錯誤: " + text);
+            }
+            host = value.substring(1, end);
+            String rest = value.substring(end + 1);
+            if (!rest.isEmpty()) {
+                if (!rest.startsWith(":")) {
+                    throw new IllegalArgumentException("伺服器位址格式錯誤: " + text);
+                }
+                portText = rest.substring(1);
+            }
+        } else {
+            int colon = value.indexOf(':');
+            // 含多個冒號且未加方括號時視為沒有端口的 IPv6 位址
+            if (colon >= 0 && colon == value.lastIndexOf(':')) {
+                host = value.substring(0, colon);
+                portText = value.substring(colon + 1);
+            }
+        }
+
+        if (host.isEmpty()) {
+            throw new IllegalArgumentException("伺服器位址格式錯誤: " + text);
+        }
+        int port = defaultPort;
+        if (portText != null) {
+            try {
+                port = Integer.parseInt(portText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("伺服器端口格式錯誤: " + text);
+            }
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("伺服器端口超出範圍: " + text);
+            }
+        }
+        return new LdapServerAddress(host, port);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public String toString() {
+        return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ldapplugin.model;
+
+/**
+ * 設定多台伺服器時選擇連線目標的方式
+ */
+public enum LdapServerSelection {
+    /**
+     * 依序嘗試，主要伺服器無法使用時才連到下一台
+     */
+    FAILOVER("容錯移轉（依序嘗試）"),
+    /**
+     * 同時嘗試所有伺服器，使用最先建立連線的一台
+     */
+    FASTEST_CONNECT("最快連線"),
+    /**
+     * 新連線輪流分配到各伺服器，讀取負載分散到所有複本
+     */
+    ROUND_ROBIN("輪流分配");
+
+    private final String displayName;
+
+    LdapServerSelection(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 由保存的名稱還原，無法辨識時使用容錯移轉
+     */
+    public static LdapServerSelection fromName(String name) {
+        for (LdapServerSelection selection : values()) {
+            if (selection.name().equals(name)) {
+                return selection;
+            }
+        }
+        return FAILOVER;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ldapplugin.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批次作業（批次修改、子樹刪除）的結果統計
+ */
+public final class LdapBatchResult {
+
+    private final long succeeded;
+    private final long failed;
+    private final long elapsedMillis;
+    private final boolean canceled;
+    private final Map<String, Long> errorsByResultCode;
+    private final List<String> errorSamples;
+    private final boolean subtreeRemovedByServer;
+
+    public LdapBatchResult(long succeeded, long failed, long elapsedMillis, boolean canceled,
+                           Map<String, Long> errorsByResultCode, List<String> errorSamples) {
+        this(succeeded, failed, elapsedMillis, canceled, errorsByResultCode, errorSamples, false);
+    }
+
+    public LdapBatchResult(long succeeded, long failed, long elapsedMillis, boolean canceled,
+                           Map<String, Long> errorsByResultCode, List<String> errorSamples,
+                           boolean subtreeRemovedByServer) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        this.canceled = canceled;
+        this.errorsByResultCode = Collections.unmodifiableMap(errorsByResultCode);
+        this.errorSamples = Collections.unmodifiableList(errorSamples);
+        this.subtreeRemovedByServer = subtreeRemovedByServer;
+    }
+
+    /**
+     * 已處理的條目數
+     */
+    public long getProcessed() {
+        return succeeded + failed;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 是否在處理完所有條目前被使用者取消
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * 依結果碼分類的失敗數
+     */
+    public Map<String, Long> getErrorsByResultCode() {
+        return errorsByResultCode;
+    }
+
+    /**
+     * 前幾筆失敗的 DN 與訊息
+     */
+    public List<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    /**
+     * 子樹是否以 Subtree Delete 控制項由伺服器在單一請求中刪除；此時成功數只代表該請求，不是刪除的條目數
+     */
+    public boolean isSubtreeRemovedByServer() {
+        return subtreeRemovedByServer;
+    }
+
+    /**
+     * 每秒處理的條目數
+     */
+    public double getEntriesPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : getProcessed() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (subtreeRemovedByServer) {
+            return String.format("subtree removed by server, elapsed=%.1fs", elapsedMillis / 1000.0);
+        }
+        return String.format("processed=%d, succeeded=%d, failed=%d, elapsed=%.1fs, %.0f entries/s%s",
+                getProcessed(), succeeded, failed, elapsedMillis / 1000.0, getEntriesPerSecond(),
+                canceled ? ", canceled" : "");
+    }
+}
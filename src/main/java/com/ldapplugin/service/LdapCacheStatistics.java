@@ -0,0 +1,49 @@
+package com.ldapplugin.service;
+
+/**
+ * 快取統計快照
+ */
+public final class LdapCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public LdapCacheStatistics(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 命中率（0 到 1），尚無查詢時為 0
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, size=%d, hitRatio=%.1f%%",
+                hits, misses, evictions, size, getHitRatio() * 100);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ldapplugin.service;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+
+/**
+ * 目錄變更通知監聽器
+ * 回呼在 LDAP 連線的讀取執行緒上執行，更新 UI 前須自行切換到 EDT
+ */
+public interface LdapChangeListener {
+
+    /**
+     * 新增條目
+     */
+    void entryAdded(Entry entry);
+
+    /**
+     * 修改條目；伺服器無法區分變更類型時（如 AD 變更通知）新增的條目也會以此回報
+     */
+    void entryModified(Entry entry);
+
+    /**
+     * 刪除條目
+     */
+    void entryDeleted(String dn);
+
+    /**
+     * 條目更名或搬移
+     */
+    void entryRenamed(String previousDn, Entry entry);
+
+    /**
+     * 監聽結束（取消、伺服器中止或連線中斷）
+     *
+     * @param cause 非正常結束時的原因，主動取消時為 null
+     */
+    default void watchEnded(LDAPException cause) {
+    }
+}
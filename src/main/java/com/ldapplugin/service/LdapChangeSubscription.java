@@ -0,0 +1,17 @@
+package com.ldapplugin.service;
+
+/**
+ * 變更通知的訂閱，取消後即停止接收通知並釋放占用的連線
+ */
+public interface LdapChangeSubscription {
+
+    /**
+     * 取消訂閱
+     */
+    void cancel();
+
+    /**
+     * 訂閱是否仍在接收通知
+     */
+    boolean isActive();
+}
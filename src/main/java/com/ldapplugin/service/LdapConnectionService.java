@@ -1,17 +1,32 @@
 package com.ldapplugin.service;
 
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.ldapplugin.model.LdapConnection;
 import com.unboundid.ldap.sdk.Entry;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.Modification;
 import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.schema.Schema;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * LDAP 連線服務介面
  */
 public interface LdapConnectionService {
     
+    /**
+     * 樹狀瀏覽需要的屬性：節點名稱（cn/ou/uid）、圖示判斷（objectClass），
+     * 以及判斷是否有子條目的操作屬性（RFC 3673 草案的 hasSubordinates、389ds/OpenDJ 的 numSubordinates、AD 的 msDS-Approx-Immed-Subordinates）
+     */
+    String[] TREE_ATTRIBUTES = {"objectClass", "cn", "ou", "uid",
+            "hasSubordinates", "numSubordinates", "msDS-Approx-Immed-Subordinates"};
+    
     /**
      * 添加 LDAP 連線
      */
@@ -53,15 +68,75 @@ public interface LdapConnectionService {
     boolean testConnection(LdapConnection connection);
     
     /**
-     * 搜尋 LDAP 條目
+     * 搜尋 LDAP 條目（以分頁方式取回全部結果）
      */
     SearchResult search(String connectionName, String baseDn, String filter, String... attributes) throws LDAPException;
     
     /**
-     * 取得子條目
+     * 取得子條目（以分頁方式取回全部結果）
+     * 只包含 {@link #TREE_ATTRIBUTES}，完整屬性請透過 {@link #getEntry(String, String)} 取得
      */
     List<Entry> getChildren(String connectionName, String parentDn) throws LDAPException;
     
+    /**
+     * 串流搜尋：每收到一筆條目即交給處理器，不在記憶體中保留結果
+     *
+     * @return 已交給處理器的條目數
+     */
+    long searchStreaming(String connectionName, String baseDn, SearchScope scope, String filter, LdapEntryHandler handler, String... attributes) throws LDAPException;
+    
+    /**
+     * 開啟分頁搜尋游標，呼叫端可先取第一頁，其餘頁面再依需要讀取；搜尋快取中已有完整結果時直接由快取分頁
+     */
+    LdapSearchCursor openSearchCursor(String connectionName, String baseDn, SearchScope scope, String filter, String... attributes) throws LDAPException;
+    
+    /**
+     * 開啟子條目的分頁游標，條目只包含 {@link #TREE_ATTRIBUTES}
+     */
+    LdapSearchCursor openChildrenCursor(String connectionName, String parentDn) throws LDAPException;
+    
+    /**
+     * 在背景預先讀取子條目的第一頁並放入搜尋快取，之後的 {@link #openChildrenCursor} 可直接由快取回傳
+     * 子條目超過一頁時不快取，以免預取占用過多連線與記憶體
+     *
+     * @return 子條目是否已完整放入快取
+     */
+    boolean prefetchChildren(String connectionName, String parentDn) throws LDAPException;
+    
+    /**
+     * 將子樹匯出為 LDIF 檔案
+     * 以分頁串流搜尋逐筆寫入，記憶體用量不隨子樹大小增加；完成前寫入暫存檔，失敗或取消時不留下不完整的檔案
+     *
+     * @param compress  是否以 gzip 壓縮
+     * @param indicator 顯示進度與接收取消，可為 null；取消時拋出 ProcessCanceledException
+     * @return 匯出的條目數
+     */
+    long exportLdif(String connectionName, String baseDn, SearchScope scope, String filter, Path target,
+                    boolean compress, ProgressIndicator indicator) throws LDAPException, IOException;
+    
+    /**
+     * 匯入 LDIF 檔案（一般條目視為新增，也支援 changetype 記錄）
+     * 變更以非同步請求分散到多條連線上管線化送出，同時進行的請求數由連線的批次設定限制；
+     * 父條目會先於子條目完成，因順序問題失敗的記錄於最後依 DN 深度重試。單筆失敗不會中止匯入
+     *
+     * @param indicator 顯示進度與接收取消，可為 null；取消時等待已送出的請求完成後回傳
+     */
+    LdifImportResult importLdif(String connectionName, Path source, ProgressIndicator indicator) throws LDAPException, IOException;
+    
+    /**
+     * 計算符合條件的條目數，供批次作業執行前預覽（不取回任何屬性）
+     */
+    long countMatches(String connectionName, String baseDn, SearchScope scope, String filter) throws LDAPException;
+    
+    /**
+     * 對所有符合條件的條目套用相同的修改
+     * 逐頁串流符合條件的 DN 並以非同步修改管線化送出，同時進行的請求數由連線的批次設定限制；單筆失敗不會中止作業
+     *
+     * @param indicator 顯示進度與接收取消，可為 null；取消時等待已送出的請求完成後回傳
+     */
+    LdapBatchResult batchModify(String connectionName, String baseDn, SearchScope scope, String filter,
+                                List<Modification> modifications, ProgressIndicator indicator) throws LDAPException;
+    
     /**
      * 新增 LDAP 條目
      */
@@ -74,6 +149,7 @@ public interface LdapConnectionService {
     
     /**
      * 修改整個 LDAP 條目
+     * 依屬性的比對規則逐值比較，只送出新增與刪除的值；變更的值多於保留的值時才取代整個屬性
      */
     void modifyEntry(String connectionName, Entry originalEntry, Entry modifiedEntry) throws LDAPException;
     
@@ -82,8 +158,83 @@ public interface LdapConnectionService {
      */
     void deleteEntry(String connectionName, String dn) throws LDAPException;
     
+    /**
+     * 刪除條目及其下所有子條目
+     * 伺服器支援 Subtree Delete 控制項時交由伺服器刪除；否則由最深的一層開始逐層平行刪除，同時進行的請求數由連線的批次設定限制
+     *
+     * @param indicator 顯示進度與接收取消，可為 null；取消時等待已送出的請求完成後回傳
+     */
+    LdapBatchResult deleteSubtree(String connectionName, String dn, ProgressIndicator indicator) throws LDAPException;
+    
     /**
      * 取得條目詳細資訊
      */
     Entry getEntry(String connectionName, String dn) throws LDAPException;
+    
+    /**
+     * 略過快取直接向伺服器讀取條目，供編輯時作為比對的基準；讀到的條目同時更新快取
+     * 讀寫分離時一律由主要伺服器讀取
+     */
+    Entry getEntryForUpdate(String connectionName, String dn) throws LDAPException;
+    
+    /**
+     * 非同步搜尋 LDAP 條目；多個請求可在同一條連線上管線化送出，讀寫分離時與同步搜尋一樣由讀取伺服器處理
+     */
+    CompletableFuture<SearchResult> searchAsync(String connectionName, String baseDn, String filter, String... attributes);
+    
+    /**
+     * 非同步新增 LDAP 條目；回傳的 future 在相關快取失效後才完成
+     */
+    CompletableFuture<LDAPResult> addEntryAsync(String connectionName, Entry entry);
+    
+    /**
+     * 非同步修改 LDAP 條目；回傳的 future 在相關快取失效後才完成
+     */
+    CompletableFuture<LDAPResult> modifyEntryAsync(String connectionName, String dn, List<Modification> modifications);
+    
+    /**
+     * 非同步刪除 LDAP 條目；回傳的 future 在相關快取失效後才完成
+     */
+    CompletableFuture<LDAPResult> deleteEntryAsync(String connectionName, String dn);
+    
+    /**
+     * 監聽 baseDn 以下的目錄變更（Persistent Search 或 AD 變更通知）
+     * 通知的條目只包含 {@link #TREE_ATTRIBUTES}；訂閱期間會占用一條連線
+     */
+    LdapChangeSubscription watchChanges(String connectionName, String baseDn, LdapChangeListener listener) throws LDAPException;
+    
+    /**
+     * 取得連線的結構描述
+     * 第一次呼叫時從伺服器讀取並快取，之後只在子結構描述條目的 modifyTimestamp 變更時重新載入
+     *
+     * @return 伺服器未提供結構描述時為 null
+     */
+    Schema getSchema(String connectionName) throws LDAPException;
+    
+    /**
+     * 取得搜尋結果快取的命中統計
+     */
+    LdapCacheStatistics getSearchCacheStatistics();
+    
+    /**
+     * 取得連線的操作統計：各類操作的延遲分佈、條目數與資料量、錯誤與連線池等待時間
+     * 統計保存在記憶體中，斷線後仍保留，移除連線或重設時清除；非同步操作與批次作業不列入
+     */
+    LdapConnectionStatistics getStatistics(String connectionName);
+    
+    /**
+     * 清除連線的操作統計，重新開始計算
+     */
+    void resetStatistics(String connectionName);
+    
+    /**
+     * 取得連線上耗時超過門檻的操作紀錄，最新的在前
+     * 門檻由連線設定指定並於連線時套用；涵蓋所有送往伺服器的請求，包含非同步、批次作業與連線池的健康檢查
+     */
+    List<LdapSlowOperation> getSlowOperations(String connectionName);
+    
+    /**
+     * 清除連線的慢速操作紀錄
+     */
+    void clearSlowOperations(String connectionName);
 }
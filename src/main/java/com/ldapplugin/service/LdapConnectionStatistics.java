@@ -0,0 +1,58 @@
+package com.ldapplugin.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 單一連線的操作統計快照
+ */
+public final class LdapConnectionStatistics {
+
+    private final String connectionName;
+    private final long startedAt;
+    private final List<LdapOperationStatistics> operations;
+    private final LdapLatencyStatistics poolWait;
+    private final Map<String, Long> errorsByResultCode;
+
+    public LdapConnectionStatistics(String connectionName, long startedAt, List<LdapOperationStatistics> operations,
+                                    LdapLatencyStatistics poolWait, Map<String, Long> errorsByResultCode) {
+        this.connectionName = connectionName;
+        this.startedAt = startedAt;
+        this.operations = Collections.unmodifiableList(operations);
+        this.poolWait = poolWait;
+        this.errorsByResultCode = Collections.unmodifiableMap(errorsByResultCode);
+    }
+
+    public String getConnectionName() {
+        return connectionName;
+    }
+
+    /**
+     * 開始統計的時間（毫秒時間戳），即第一次操作或上次重設的時間
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * 各操作類型的統計，依 {@link LdapOperationType} 的順序排列
+     */
+    public List<LdapOperationStatistics> getOperations() {
+        return operations;
+    }
+
+    /**
+     * 從連線池取得連線的等待時間；未使用連線池時沒有資料
+     */
+    public LdapLatencyStatistics getPoolWait() {
+        return poolWait;
+    }
+
+    /**
+     * 依結果碼分類的錯誤次數，依次數由多到少排列
+     */
+    public Map<String, Long> getErrorsByResultCode() {
+        return errorsByResultCode;
+    }
+}
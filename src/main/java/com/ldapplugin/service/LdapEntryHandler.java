@@ -0,0 +1,18 @@
+package com.ldapplugin.service;
+
+import com.unboundid.ldap.sdk.Entry;
+
+/**
+ * 串流搜尋的條目處理器
+ * 每收到一筆條目即呼叫一次，條目不會在記憶體中累積
+ */
+@FunctionalInterface
+public interface LdapEntryHandler {
+
+    /**
+     * 處理一筆條目
+     *
+     * @return 回傳 false 表示停止接收後續結果
+     */
+    boolean handleEntry(Entry entry);
+}
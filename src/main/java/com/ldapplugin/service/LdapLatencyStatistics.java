@@ -0,0 +1,54 @@
+package com.ldapplugin.service;
+
+/**
+ * 延遲分佈快照，時間單位為微秒
+ * 百分位數取自直方圖的分桶上界，相對誤差約 1.6%
+ */
+public final class LdapLatencyStatistics {
+
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long max;
+
+    public LdapLatencyStatistics(long count, double mean, long p50, long p95, long p99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.0fµs, p50=%dµs, p95=%dµs, p99=%dµs, max=%dµs",
+                count, mean, p50, p95, p99, max);
+    }
+}
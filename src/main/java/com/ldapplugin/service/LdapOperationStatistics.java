@@ -0,0 +1,56 @@
+package com.ldapplugin.service;
+
+/**
+ * 單一操作類型的統計快照
+ */
+public final class LdapOperationStatistics {
+
+    private final LdapOperationType type;
+    private final LdapLatencyStatistics latency;
+    private final long errors;
+    private final long entries;
+    private final long entryBytes;
+
+    public LdapOperationStatistics(LdapOperationType type, LdapLatencyStatistics latency,
+                                   long errors, long entries, long entryBytes) {
+        this.type = type;
+        this.latency = latency;
+        this.errors = errors;
+        this.entries = entries;
+        this.entryBytes = entryBytes;
+    }
+
+    public LdapOperationType getType() {
+        return type;
+    }
+
+    /**
+     * 所有請求（包含失敗）的延遲分佈；分頁搜尋的每一頁各算一次請求
+     */
+    public LdapLatencyStatistics getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * 回傳的條目數
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * 回傳條目的資料量（DN、屬性名稱與值的位元組數），不含協定的額外負擔；串流處理的搜尋結果不計入
+     */
+    public long getEntryBytes() {
+        return entryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + latency + ", errors=" + errors + ", entries=" + entries + ", entryBytes=" + entryBytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ldapplugin.service;
+
+/**
+ * 連線服務統計的操作類型
+ */
+public enum LdapOperationType {
+    /**
+     * 建立連線（池），包含初始連線的繫結
+     */
+    CONNECT("連線"),
+    SEARCH("搜尋"),
+    GET_CHILDREN("載入子條目"),
+    GET_ENTRY("讀取條目"),
+    ADD("新增"),
+    MODIFY("修改"),
+    DELETE("刪除");
+
+    private final String displayName;
+
+    LdapOperationType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ldapplugin.service;
+
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.schema.AttributeTypeDefinition;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.StaticUtils;
+
+import java.util.Set;
+
+/**
+ * 依結構描述判斷屬性特性
+ * 結構描述為 null 或找不到屬性定義時，改以屬性選項與實際值推斷
+ */
+public final class LdapSchemaSupport {
+
+    /**
+     * 以二進位傳輸的語法：Audio、Binary、Certificate、Certificate List、Certificate Pair、Fax、JPEG、Octet String
+     */
+    private static final Set<String> BINARY_SYNTAX_OIDS = Set.of(
+            "1.3.6.1.4.1.1466.115.121.1.4",
+            "1.3.6.1.4.1.1466.115.121.1.5",
+            "1.3.6.1.4.1.1466.115.121.1.8",
+            "1.3.6.1.4.1.1466.115.121.1.9",
+            "1.3.6.1.4.1.1466.115.121.1.10",
+            "1.3.6.1.4.1.1466.115.121.1.23",
+            "1.3.6.1.4.1.1466.115.121.1.28",
+            "1.3.6.1.4.1.1466.115.121.1.40"
+    );
+
+    private LdapSchemaSupport() {
+    }
+
+    /**
+     * 屬性是否為二進位資料，不應以字串顯示或編輯
+     */
+    public static boolean isBinary(Schema schema, Attribute attribute) {
+        if (attribute.hasOption("binary")) {
+            return true;
+        }
+        AttributeTypeDefinition definition = getDefinition(schema, attribute.getBaseName());
+        if (definition != null) {
+            String syntaxOid = definition.getBaseSyntaxOID(schema);
+            if (syntaxOid != null) {
+                return BINARY_SYNTAX_OIDS.contains(syntaxOid);
+            }
+        }
+        for (byte[] value : attribute.getValueByteArrays()) {
+            if (!StaticUtils.isValidUTF8(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 屬性是否為單值；沒有定義時視為多值
+     */
+    public static boolean isSingleValued(Schema schema, String attributeName) {
+        AttributeTypeDefinition definition = getDefinition(schema, Attribute.getBaseName(attributeName));
+        return definition != null && definition.isSingleValued();
+    }
+
+    /**
+     * 屬性是否允許多值；沒有定義時回傳 null，由呼叫端自行推斷
+     */
+    public static Boolean isMultiValued(Schema schema, String attributeName) {
+        AttributeTypeDefinition definition = getDefinition(schema, Attribute.getBaseName(attributeName));
+        return definition == null ? null : !definition.isSingleValued();
+    }
+
+    /**
+     * 屬性是否由伺服器維護、不可由使用者修改
+     */
+    public static boolean isNoUserModification(Schema schema, String attributeName) {
+        AttributeTypeDefinition definition = getDefinition(schema, Attribute.getBaseName(attributeName));
+        return definition != null && definition.isNoUserModification();
+    }
+
+    private static AttributeTypeDefinition getDefinition(Schema schema, String baseName) {
+        return schema == null ? null : schema.getAttributeType(baseName);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ldapplugin.service;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.List;
+
+/**
+ * 分頁搜尋游標
+ * 以 Simple Paged Results 控制項逐頁取得結果；游標在讀完或關閉前會占用一條連線，使用完畢務必呼叫 {@link #close()}
+ */
+public interface LdapSearchCursor extends AutoCloseable {
+
+    /**
+     * 取得下一頁條目；沒有更多結果時回傳空清單
+     */
+    List<Entry> nextPage() throws LDAPException;
+
+    /**
+     * 是否還有尚未取得的頁面
+     */
+    boolean hasMore();
+
+    /**
+     * 已取得的條目總數
+     */
+    int getFetchedCount();
+
+    /**
+     * 關閉游標並歸還連線
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,143 @@
+package com.ldapplugin.service;
+
+import com.unboundid.ldap.sdk.OperationType;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchScope;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 一筆超過門檻的 LDAP 操作紀錄；分頁搜尋的每一頁是一筆獨立的請求，時間單位為微秒
+ */
+public final class LdapSlowOperation {
+
+    private final long timestamp;
+    private final String server;
+    private final OperationType operationType;
+    private final String dn;
+    private final SearchScope scope;
+    private final String filter;
+    private final List<String> attributes;
+    private final List<String> controls;
+    private final ResultCode resultCode;
+    private final long entryCount;
+    private final long timeToFirstEntryMicros;
+    private final long durationMicros;
+
+    public LdapSlowOperation(long timestamp, String server, OperationType operationType, String dn,
+                             SearchScope scope, String filter, List<String> attributes, List<String> controls,
+                             ResultCode resultCode, long entryCount, long timeToFirstEntryMicros, long durationMicros) {
+        this.timestamp = timestamp;
+        this.server = server;
+        this.operationType = operationType;
+        this.dn = dn;
+        this.scope = scope;
+        this.filter = filter;
+        this.attributes = Collections.unmodifiableList(attributes);
+        this.controls = Collections.unmodifiableList(controls);
+        this.resultCode = resultCode;
+        this.entryCount = entryCount;
+        this.timeToFirstEntryMicros = timeToFirstEntryMicros;
+        this.durationMicros = durationMicros;
+    }
+
+    /**
+     * 送出請求的時間（毫秒時間戳）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 處理請求的伺服器（host:port）
+     */
+    public String getServer() {
+        return server;
+    }
+
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    /**
+     * 搜尋的 Base DN 或操作的目標 DN
+     */
+    public String getDn() {
+        return dn;
+    }
+
+    /**
+     * 搜尋範圍；非搜尋操作為 null
+     */
+    public SearchScope getScope() {
+        return scope;
+    }
+
+    /**
+     * 搜尋篩選器；非搜尋操作為 null
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    public List<String> getControls() {
+        return controls;
+    }
+
+    public ResultCode getResultCode() {
+        return resultCode;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 從送出請求到收到第一筆條目的時間；沒有回傳條目時為 -1
+     */
+    public long getTimeToFirstEntryMicros() {
+        return timeToFirstEntryMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    /**
+     * 以單行文字表示，供匯出使用
+     */
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder();
+        line.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(timestamp)))
+                .append(' ').append(operationType.name())
+                .append(" duration=").append(String.format("%.3fms", durationMicros / 1000.0));
+        if (timeToFirstEntryMicros >= 0) {
+            line.append(" firstEntry=").append(String.format("%.3fms", timeToFirstEntryMicros / 1000.0));
+        }
+        line.append(" entries=").append(entryCount)
+                .append(" result=").append(resultCode)
+                .append(" server=").append(server)
+                .append(" dn=\"").append(dn).append('"');
+        if (scope != null) {
+            line.append(" scope=").append(scope.getName());
+        }
+        if (filter != null) {
+            line.append(" filter=\"").append(filter).append('"');
+        }
+        if (!attributes.isEmpty()) {
+            line.append(" attributes=").append(attributes);
+        }
+        if (!controls.isEmpty()) {
+            line.append(" controls=").append(controls);
+        }
+        return line.toString();
+    }
+}
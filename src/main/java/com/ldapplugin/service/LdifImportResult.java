@@ -0,0 +1,93 @@
+package com.ldapplugin.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LDIF 匯入結果統計
+ */
+public final class LdifImportResult {
+
+    private final long records;
+    private final long succeeded;
+    private final long failed;
+    private final long retried;
+    private final long elapsedMillis;
+    private final boolean canceled;
+    private final Map<String, Long> errorsByResultCode;
+    private final List<String> errorSamples;
+
+    public LdifImportResult(long records, long succeeded, long failed, long retried, long elapsedMillis,
+                            boolean canceled, Map<String, Long> errorsByResultCode, List<String> errorSamples) {
+        this.records = records;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.retried = retried;
+        this.elapsedMillis = elapsedMillis;
+        this.canceled = canceled;
+        this.errorsByResultCode = Collections.unmodifiableMap(errorsByResultCode);
+        this.errorSamples = Collections.unmodifiableList(errorSamples);
+    }
+
+    /**
+     * 讀取到的記錄數（含無法解析的記錄）
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 因父條目尚未建立等順序問題而在最後重試的記錄數
+     */
+    public long getRetried() {
+        return retried;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 是否在讀完檔案前被使用者取消
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * 依結果碼分類的失敗數；LDIF 解析錯誤歸類為 "LDIF parse error"
+     */
+    public Map<String, Long> getErrorsByResultCode() {
+        return errorsByResultCode;
+    }
+
+    /**
+     * 前幾筆失敗的 DN 與訊息
+     */
+    public List<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    /**
+     * 每秒處理的記錄數
+     */
+    public double getRecordsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : records * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("records=%d, succeeded=%d, failed=%d, retried=%d, elapsed=%.1fs, %.0f records/s%s",
+                records, succeeded, failed, retried, elapsedMillis / 1000.0, getRecordsPerSecond(),
+                canceled ? ", canceled" : "");
+    }
+}
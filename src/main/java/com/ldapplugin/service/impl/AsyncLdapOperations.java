@@ -0,0 +1,163 @@
+package com.ldapplugin.service.impl;
+
+import com.unboundid.ldap.sdk.AddRequest;
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.AsyncResultListener;
+import com.unboundid.ldap.sdk.AsyncSearchResultListener;
+import com.unboundid.ldap.sdk.DeleteRequest;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.LDAPSearchException;
+import com.unboundid.ldap.sdk.ModifyDNRequest;
+import com.unboundid.ldap.sdk.ModifyRequest;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 以 UnboundID 非同步 API 包裝 LDAP 操作
+ * 同一條連線上可同時有多個未完成的請求，回應由連線的讀取執行緒完成對應的 {@link CompletableFuture}
+ */
+final class AsyncLdapOperations {
+
+    private AsyncLdapOperations() {
+    }
+
+    /**
+     * 非同步搜尋，完成時回傳包含所有條目的 {@link SearchResult}
+     */
+    static CompletableFuture<SearchResult> search(LDAPConnection connection, SearchRequest template) {
+        CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        CollectingSearchListener listener = new CollectingSearchListener(future);
+        try {
+            SearchRequest request = new SearchRequest(listener, template.getBaseDN(), template.getScope(),
+                    template.getDereferencePolicy(), template.getSizeLimit(), template.getTimeLimitSeconds(),
+                    template.typesOnly(), template.getFilter(), template.getAttributes());
+            request.setControls(template.getControls());
+            AsyncRequestID requestID = connection.asyncSearch(request);
+            cancelOnAbort(future, requestID);
+        } catch (LDAPException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    static CompletableFuture<LDAPResult> add(LDAPConnection connection, AddRequest request) {
+        CompletableFuture<LDAPResult> future = new CompletableFuture<>();
+        try {
+            cancelOnAbort(future, connection.asyncAdd(request, new ResultListener(future)));
+        } catch (LDAPException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    static CompletableFuture<LDAPResult> modify(LDAPConnection connection, ModifyRequest request) {
+        CompletableFuture<LDAPResult> future = new CompletableFuture<>();
+        try {
+            cancelOnAbort(future, connection.asyncModify(request, new ResultListener(future)));
+        } catch (LDAPException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    static CompletableFuture<LDAPResult> delete(LDAPConnection connection, DeleteRequest request) {
+        CompletableFuture<LDAPResult> future = new CompletableFuture<>();
+        try {
+            cancelOnAbort(future, connection.asyncDelete(request, new ResultListener(future)));
+        } catch (LDAPException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    static CompletableFuture<LDAPResult> modifyDN(LDAPConnection connection, ModifyDNRequest request) {
+        CompletableFuture<LDAPResult> future = new CompletableFuture<>();
+        try {
+            cancelOnAbort(future, connection.asyncModifyDN(request, new ResultListener(future)));
+        } catch (LDAPException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 呼叫端取消 future 時一併放棄（abandon）伺服器上的請求
+     */
+    private static void cancelOnAbort(CompletableFuture<?> future, AsyncRequestID requestID) {
+        future.whenComplete((result, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                requestID.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 將非 SUCCESS 的結果轉為例外，與同步 API 的行為一致
+     */
+    private static final class ResultListener implements AsyncResultListener {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CompletableFuture<LDAPResult> future;
+
+        ResultListener(CompletableFuture<LDAPResult> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void ldapResultReceived(AsyncRequestID requestID, LDAPResult ldapResult) {
+            if (ldapResult.getResultCode() == ResultCode.SUCCESS) {
+                future.complete(ldapResult);
+            } else {
+                future.completeExceptionally(new LDAPException(ldapResult));
+            }
+        }
+    }
+
+    /**
+     * 收集條目的搜尋監聽器；回呼由連線的讀取執行緒依序呼叫
+     */
+    private static final class CollectingSearchListener implements AsyncSearchResultListener {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CompletableFuture<SearchResult> future;
+        private final transient List<SearchResultEntry> entries = new ArrayList<>();
+        private final transient List<SearchResultReference> references = new ArrayList<>();
+
+        CollectingSearchListener(CompletableFuture<SearchResult> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void searchEntryReturned(SearchResultEntry searchEntry) {
+            entries.add(searchEntry);
+        }
+
+        @Override
+        public void searchReferenceReturned(SearchResultReference searchReference) {
+            references.add(searchReference);
+        }
+
+        @Override
+        public void searchResultReceived(AsyncRequestID requestID, SearchResult searchResult) {
+            SearchResult result = new SearchResult(searchResult.getMessageID(), searchResult.getResultCode(),
+                    searchResult.getDiagnosticMessage(), searchResult.getMatchedDN(),
+                    searchResult.getReferralURLs(), entries, references,
+                    entries.size(), references.size(), searchResult.getResponseControls());
+            if (result.getResultCode() == ResultCode.SUCCESS) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(new LDAPSearchException(result));
+            }
+        }
+    }
+}
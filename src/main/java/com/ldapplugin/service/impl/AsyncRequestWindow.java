@@ -0,0 +1,96 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.model.LdapConnection;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批次作業的非同步請求視窗
+ * 請求輪流分散到數條從連線池借出的連線上管線化送出，同時進行的請求數以 semaphore 限制；關閉時等待所有請求完成再歸還連線
+ */
+final class AsyncRequestWindow implements AutoCloseable {
+
+    private final LdapConnection connection;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final LDAPConnection[] connections;
+    private final List<LDAPConnection> defunctConnections = new ArrayList<>();
+    private final AtomicLong nextConnection = new AtomicLong();
+
+    AsyncRequestWindow(LdapConnection connection, int maxInFlight) {
+        this.connection = connection;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        int connectionCount = connection.isUsePool() ? Math.min(connection.getMaxPoolSize(), this.maxInFlight) : 1;
+        this.connections = new LDAPConnection[Math.max(1, connectionCount)];
+    }
+
+    /**
+     * 取得一個送出名額，視窗已滿時阻塞到有請求完成
+     */
+    void acquire() {
+        permits.acquireUninterruptibly();
+    }
+
+    /**
+     * 請求完成後歸還名額
+     */
+    void release() {
+        permits.release();
+    }
+
+    /**
+     * 依序輪流取得送出請求的連線；第一次使用時才借出，連線已中斷時換一條新的
+     */
+    LDAPConnection nextConnection() throws LDAPException {
+        int index = (int) (nextConnection.getAndIncrement() % connections.length);
+        synchronized (connections) {
+            LDAPConnection ldap = connections[index];
+            if (ldap == null || !ldap.isConnected()) {
+                if (ldap != null) {
+                    defunctConnections.add(ldap);
+                    connections[index] = null;
+                }
+                ldap = connection.checkoutConnection();
+                connections[index] = ldap;
+            }
+            return ldap;
+        }
+    }
+
+    /**
+     * 等待所有已送出的請求完成
+     */
+    void awaitIdle() {
+        permits.acquireUninterruptibly(maxInFlight);
+        permits.release(maxInFlight);
+    }
+
+    @Override
+    public void close() {
+        awaitIdle();
+        synchronized (connections) {
+            for (int i = 0; i < connections.length; i++) {
+                LDAPConnection ldap = connections[i];
+                if (ldap == null) {
+                    continue;
+                }
+                if (ldap.isConnected()) {
+                    connection.releaseConnection(ldap);
+                } else {
+                    connection.releaseDefunctConnection(ldap);
+                }
+                connections[i] = null;
+            }
+            for (LDAPConnection ldap : defunctConnections) {
+                connection.releaseDefunctConnection(ldap);
+            }
+            defunctConnections.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ldapplugin.service.impl;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapBatchResult;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModifyRequest;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+
+import java.util.List;
+
+/**
+ * 對搜尋結果批次套用修改
+ * 以分頁搜尋逐頁取得符合條件的 DN（不取回屬性），每頁的 DN 立即以非同步修改送出，記憶體用量只與單頁大小有關
+ */
+final class BatchModifier {
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private BatchModifier() {
+    }
+
+    static LdapBatchResult modify(LdapConnection connection, SearchRequest dnSearch, List<Modification> modifications,
+                                  int maxInFlight, ProgressIndicator indicator) throws LDAPException {
+        long startTime = System.currentTimeMillis();
+        BatchStatistics statistics = new BatchStatistics();
+        boolean canceled = false;
+
+        try (AsyncRequestWindow window = new AsyncRequestWindow(connection, maxInFlight);
+             PagedSearchCursor cursor = new PagedSearchCursor(connection, dnSearch, connection.getPageSize())) {
+            SearchResult page;
+            while (!canceled && (page = cursor.nextPageResult()) != null) {
+                for (SearchResultEntry entry : page.getSearchEntries()) {
+                    if (indicator != null && indicator.isCanceled()) {
+                        canceled = true;
+                        break;
+                    }
+                    submit(window, entry.getDN(), modifications, statistics, indicator);
+                }
+            }
+        }
+
+        return new LdapBatchResult(statistics.getSucceeded(), statistics.getFailed(),
+                System.currentTimeMillis() - startTime, canceled,
+                statistics.getErrorsByResultCode(), statistics.getErrorSamples());
+    }
+
+    private static void submit(AsyncRequestWindow window, String dn, List<Modification> modifications,
+                               BatchStatistics statistics, ProgressIndicator indicator) {
+        window.acquire();
+        LDAPConnection ldap;
+        try {
+            ldap = window.nextConnection();
+        } catch (LDAPException e) {
+            statistics.recordFailure(dn, e);
+            window.release();
+            return;
+        }
+
+        AsyncLdapOperations.modify(ldap, new ModifyRequest(dn, modifications)).whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                statistics.recordSuccess();
+            } else {
+                statistics.recordFailure(dn, throwable);
+            }
+            long processed = statistics.getProcessed();
+            if (indicator != null && processed % PROGRESS_INTERVAL == 0) {
+                indicator.setText2("已修改 " + statistics.getSucceeded() + " 筆，失敗 " + statistics.getFailed() + " 筆");
+            }
+            window.release();
+        });
+    }
+}
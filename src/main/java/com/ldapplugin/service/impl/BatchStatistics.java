@@ -0,0 +1,82 @@
+package com.ldapplugin.service.impl;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批次作業的成功與失敗統計，可由多條連線的讀取執行緒同時更新
+ */
+final class BatchStatistics {
+
+    private static final int MAX_ERROR_SAMPLES = 100;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> errorsByResultCode = new ConcurrentHashMap<>();
+    private final List<String> errorSamples = new ArrayList<>();
+
+    void recordSuccess() {
+        succeeded.incrementAndGet();
+    }
+
+    void recordFailure(String code, String message) {
+        failed.incrementAndGet();
+        errorsByResultCode.computeIfAbsent(code, k -> new AtomicLong()).incrementAndGet();
+        synchronized (errorSamples) {
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                errorSamples.add(message);
+            }
+        }
+    }
+
+    void recordFailure(String dn, Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        recordFailure(resultCodeOf(cause).getName(), dn + ": " + cause.getMessage());
+    }
+
+    long getSucceeded() {
+        return succeeded.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    long getProcessed() {
+        return succeeded.get() + failed.get();
+    }
+
+    Map<String, Long> getErrorsByResultCode() {
+        Map<String, Long> errors = new TreeMap<>();
+        errorsByResultCode.forEach((code, count) -> errors.put(code, count.get()));
+        return errors;
+    }
+
+    List<String> getErrorSamples() {
+        synchronized (errorSamples) {
+            return new ArrayList<>(errorSamples);
+        }
+    }
+
+    /**
+     * 取出 CompletableFuture 包裝的原始例外
+     */
+    static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+    }
+
+    static ResultCode resultCodeOf(Throwable cause) {
+        return cause instanceof LDAPException ? ((LDAPException) cause).getResultCode() : ResultCode.LOCAL_ERROR;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapSearchCursor;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 與搜尋快取整合的游標
+ * 快取中已有完整結果時直接在記憶體中分頁，不占用連線；否則委派給 {@link PagedSearchCursor}，
+ * 從頭讀到尾且筆數未超過快取上限時把合併後的結果寫回快取
+ */
+final class CachingSearchCursor implements LdapSearchCursor {
+
+    private final SearchResultCache cache;
+    private final String connectionName;
+    private final SearchRequest searchRequest;
+    private final int pageSize;
+    private final int maxCachedEntries;
+    private final PagedSearchCursor delegate;
+    private final List<SearchResultEntry> cachedEntries;
+    private int position;
+    private List<SearchResultEntry> collectedEntries = new ArrayList<>();
+    private List<SearchResultReference> collectedReferences = new ArrayList<>();
+
+    private CachingSearchCursor(SearchResultCache cache, String connectionName, SearchRequest searchRequest,
+                                int pageSize, int maxCachedEntries, PagedSearchCursor delegate,
+                                List<SearchResultEntry> cachedEntries) {
+        this.cache = cache;
+        this.connectionName = connectionName;
+        this.searchRequest = searchRequest;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxCachedEntries = maxCachedEntries;
+        this.delegate = delegate;
+        this.cachedEntries = cachedEntries;
+    }
+
+    static CachingSearchCursor open(SearchResultCache cache, String connectionName, SearchRequest searchRequest,
+                                    PagedSearchCursor delegate, int pageSize, int maxCachedEntries) {
+        SearchResult cached = cache.get(connectionName, searchRequest);
+        List<SearchResultEntry> cachedEntries = cached != null ? cached.getSearchEntries() : null;
+        return new CachingSearchCursor(cache, connectionName, searchRequest, pageSize, maxCachedEntries,
+                cachedEntries != null ? null : delegate, cachedEntries);
+    }
+
+    @Override
+    public synchronized List<Entry> nextPage() throws LDAPException {
+        if (cachedEntries != null) {
+            int end = Math.min(position + pageSize, cachedEntries.size());
+            List<Entry> page = new ArrayList<>(cachedEntries.subList(position, end));
+            position = end;
+            return page;
+        }
+
+        SearchResult pageResult = delegate.nextPageResult();
+        if (pageResult == null) {
+            return Collections.emptyList();
+        }
+        collect(pageResult);
+        return new ArrayList<>(pageResult.getSearchEntries());
+    }
+
+    private void collect(SearchResult pageResult) {
+        if (collectedEntries == null) {
+            return;
+        }
+        if (collectedEntries.size() + pageResult.getEntryCount() > maxCachedEntries) {
+            // 結果太大不會被快取，不再保留已讀取的條目
+            collectedEntries = null;
+            collectedReferences = null;
+            return;
+        }
+        collectedEntries.addAll(pageResult.getSearchEntries());
+        collectedReferences.addAll(pageResult.getSearchReferences());
+        if (!delegate.hasMore()) {
+            cache.put(connectionName, searchRequest,
+                    SearchResultCache.aggregate(pageResult, collectedEntries, collectedReferences));
+            collectedEntries = null;
+            collectedReferences = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean hasMore() {
+        if (cachedEntries != null) {
+            return position < cachedEntries.size();
+        }
+        return delegate.hasMore();
+    }
+
+    @Override
+    public synchronized int getFetchedCount() {
+        return cachedEntries != null ? position : delegate.getFetchedCount();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (cachedEntries != null) {
+            position = cachedEntries.size();
+        } else {
+            delegate.close();
+        }
+        collectedEntries = null;
+        collectedReferences = null;
+    }
+}
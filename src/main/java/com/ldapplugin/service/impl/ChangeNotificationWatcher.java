@@ -0,0 +1,179 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapChangeListener;
+import com.ldapplugin.service.LdapChangeSubscription;
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.AsyncSearchResultListener;
+import com.unboundid.ldap.sdk.Control;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSearchException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.RootDSE;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultReference;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.controls.EntryChangeNotificationControl;
+import com.unboundid.ldap.sdk.controls.PersistentSearchChangeType;
+import com.unboundid.ldap.sdk.controls.PersistentSearchRequestControl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 以長時間執行的非同步搜尋接收目錄變更
+ * OpenLDAP / 389ds 等支援 Persistent Search 的伺服器可取得精確的變更類型；
+ * AD 則使用 LDAP_SERVER_NOTIFICATION 控制項，只能得知條目有變動，刪除與更名需待重新整理才會反映
+ */
+final class ChangeNotificationWatcher implements LdapChangeSubscription, AsyncSearchResultListener {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Active Directory 的變更通知控制項（LDAP_SERVER_NOTIFICATION_OID）
+     */
+    static final String AD_NOTIFICATION_OID = "1.2.840.113556.1.4.528";
+
+    private final transient LdapConnection connection;
+    private final transient LDAPConnection watchConnection;
+    private final transient LdapChangeListener listener;
+    private final boolean persistentSearch;
+    private final AtomicBoolean active = new AtomicBoolean(true);
+    private transient volatile AsyncRequestID requestID;
+
+    private ChangeNotificationWatcher(LdapConnection connection, LDAPConnection watchConnection,
+                                      LdapChangeListener listener, boolean persistentSearch) {
+        this.connection = connection;
+        this.watchConnection = watchConnection;
+        this.listener = listener;
+        this.persistentSearch = persistentSearch;
+    }
+
+    /**
+     * 依伺服器支援的控制項開始監聽 baseDn 以下的變更；監聽期間會占用一條連線
+     */
+    static ChangeNotificationWatcher start(LdapConnection connection, String baseDn,
+                                           LdapChangeListener listener, String... attributes) throws LDAPException {
+        LDAPConnection ldap = connection.checkoutConnection();
+        try {
+            RootDSE rootDSE = ldap.getRootDSE();
+            Control control;
+            boolean persistentSearch;
+            if (rootDSE != null && rootDSE.supportsControl(PersistentSearchRequestControl.PERSISTENT_SEARCH_REQUEST_OID)) {
+                control = new PersistentSearchRequestControl(PersistentSearchChangeType.allChangeTypes(), true, true);
+                persistentSearch = true;
+            } else if (rootDSE != null && rootDSE.supportsControl(AD_NOTIFICATION_OID)) {
+                control = new Control(AD_NOTIFICATION_OID, true);
+                persistentSearch = false;
+            } else {
+                throw new LDAPException(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION,
+                        "伺服器不支援 Persistent Search 或變更通知控制項");
+            }
+
+            ChangeNotificationWatcher watcher = new ChangeNotificationWatcher(connection, ldap, listener, persistentSearch);
+            SearchRequest request = new SearchRequest(watcher, baseDn, SearchScope.SUB, "(objectClass=*)", attributes);
+            request.addControl(control);
+            // 監聽不會自行結束，不套用連線的回應逾時
+            request.setResponseTimeoutMillis(0L);
+            watcher.requestID = ldap.asyncSearch(request);
+            return watcher;
+        } catch (LDAPException e) {
+            if (ResultCode.isConnectionUsable(e.getResultCode())) {
+                connection.releaseConnection(ldap);
+            } else {
+                connection.releaseDefunctConnection(ldap);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void searchEntryReturned(SearchResultEntry searchEntry) {
+        if (!active.get()) {
+            return;
+        }
+        try {
+            dispatch(searchEntry);
+        } catch (RuntimeException e) {
+            // 監聽器的錯誤不可中斷連線的讀取執行緒
+        }
+    }
+
+    private void dispatch(SearchResultEntry entry) {
+        if (!persistentSearch) {
+            listener.entryModified(entry);
+            return;
+        }
+
+        EntryChangeNotificationControl notification;
+        try {
+            notification = EntryChangeNotificationControl.get(entry);
+        } catch (LDAPException e) {
+            notification = null;
+        }
+        if (notification == null) {
+            listener.entryModified(entry);
+            return;
+        }
+
+        switch (notification.getChangeType()) {
+            case ADD:
+                listener.entryAdded(entry);
+                break;
+            case DELETE:
+                listener.entryDeleted(entry.getDN());
+                break;
+            case MODIFY_DN:
+                if (notification.getPreviousDN() != null) {
+                    listener.entryRenamed(notification.getPreviousDN(), entry);
+                } else {
+                    listener.entryModified(entry);
+                }
+                break;
+            default:
+                listener.entryModified(entry);
+                break;
+        }
+    }
+
+    @Override
+    public void searchReferenceReturned(SearchResultReference searchReference) {
+        // 不追蹤 referral
+    }
+
+    @Override
+    public void searchResultReceived(AsyncRequestID requestID, SearchResult searchResult) {
+        // 伺服器結束了監聽（例如管理員限制或連線中斷）
+        LDAPException cause = searchResult.getResultCode() == ResultCode.SUCCESS
+                ? null
+                : new LDAPSearchException(searchResult);
+        finish(cause, cause != null && !ResultCode.isConnectionUsable(cause.getResultCode()));
+    }
+
+    @Override
+    public void cancel() {
+        AsyncRequestID id = requestID;
+        if (active.get() && id != null) {
+            id.cancel(true);
+        }
+        finish(null, false);
+    }
+
+    @Override
+    public boolean isActive() {
+        return active.get();
+    }
+
+    private void finish(LDAPException cause, boolean defunct) {
+        if (!active.compareAndSet(true, false)) {
+            return;
+        }
+        if (defunct) {
+            connection.releaseDefunctConnection(watchConnection);
+        } else {
+            connection.releaseConnection(watchConnection);
+        }
+        listener.watchEnded(cause);
+    }
+}
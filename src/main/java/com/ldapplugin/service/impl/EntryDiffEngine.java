@@ -0,0 +1,121 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapSchemaSupport;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 計算兩個條目之間的最小修改集
+ * 每個屬性的值依屬性的相等比對規則正規化後放入雜湊表比較，與值的順序無關，大型多值屬性也能在線性時間內完成；
+ * 逐值的 DELETE / ADD 比整個 REPLACE 傳送更多值時才改用 REPLACE
+ */
+final class EntryDiffEngine {
+
+    private EntryDiffEngine() {
+    }
+
+    /**
+     * @param schema 用來選擇比對規則與判斷單值屬性，可為 null（使用預設的不分大小寫字串比對）
+     */
+    static List<Modification> diff(Entry original, Entry modified, Schema schema) {
+        List<Modification> modifications = new ArrayList<>();
+
+        for (Attribute modifiedAttr : modified.getAttributes()) {
+            Attribute originalAttr = original.getAttribute(modifiedAttr.getName());
+            if (originalAttr == null || !originalAttr.hasValue()) {
+                if (modifiedAttr.hasValue()) {
+                    modifications.add(new Modification(ModificationType.ADD, modifiedAttr.getName(),
+                            modifiedAttr.getRawValues()));
+                }
+            } else if (!modifiedAttr.hasValue()) {
+                modifications.add(new Modification(ModificationType.DELETE, originalAttr.getName()));
+            } else {
+                diffValues(originalAttr, modifiedAttr, schema, modifications);
+            }
+        }
+
+        for (Attribute originalAttr : original.getAttributes()) {
+            if (modified.getAttribute(originalAttr.getName()) == null) {
+                modifications.add(new Modification(ModificationType.DELETE, originalAttr.getName()));
+            }
+        }
+        return modifications;
+    }
+
+    private static void diffValues(Attribute originalAttr, Attribute modifiedAttr, Schema schema,
+                                   List<Modification> modifications) {
+        String name = modifiedAttr.getName();
+        MatchingRule matchingRule = MatchingRule.selectEqualityMatchingRule(modifiedAttr.getBaseName(), schema);
+        Map<ASN1OctetString, ASN1OctetString> originalValues = normalize(originalAttr, matchingRule);
+        Map<ASN1OctetString, ASN1OctetString> modifiedValues = normalize(modifiedAttr, matchingRule);
+
+        List<ASN1OctetString> removed = new ArrayList<>();
+        boolean rewritten = false;
+        for (Map.Entry<ASN1OctetString, ASN1OctetString> value : originalValues.entrySet()) {
+            ASN1OctetString modifiedValue = modifiedValues.get(value.getKey());
+            if (modifiedValue == null) {
+                removed.add(value.getValue());
+            } else if (!Arrays.equals(modifiedValue.getValue(), value.getValue().getValue())) {
+                // 比對規則視為相同但內容不同（例如只改了大小寫），只有 REPLACE 能保留新的寫法
+                rewritten = true;
+            }
+        }
+        List<ASN1OctetString> added = new ArrayList<>();
+        for (Map.Entry<ASN1OctetString, ASN1OctetString> value : modifiedValues.entrySet()) {
+            if (!originalValues.containsKey(value.getKey())) {
+                added.add(value.getValue());
+            }
+        }
+
+        if (removed.isEmpty() && added.isEmpty() && !rewritten) {
+            return;
+        }
+
+        int valueLevelCost = removed.size() + added.size();
+        if (rewritten || LdapSchemaSupport.isSingleValued(schema, name) || modifiedValues.size() < valueLevelCost) {
+            modifications.add(new Modification(ModificationType.REPLACE, name,
+                    modifiedValues.values().toArray(new ASN1OctetString[0])));
+            return;
+        }
+        // 先刪後加，單值屬性在沒有結構描述時也不會短暫出現兩個值
+        if (!removed.isEmpty()) {
+            modifications.add(new Modification(ModificationType.DELETE, name,
+                    removed.toArray(new ASN1OctetString[0])));
+        }
+        if (!added.isEmpty()) {
+            modifications.add(new Modification(ModificationType.ADD, name,
+                    added.toArray(new ASN1OctetString[0])));
+        }
+    }
+
+    /**
+     * 正規化值到原始值的對應，保留原始順序；正規化後重複的值只保留第一個
+     */
+    private static Map<ASN1OctetString, ASN1OctetString> normalize(Attribute attribute, MatchingRule matchingRule) {
+        ASN1OctetString[] rawValues = attribute.getRawValues();
+        Map<ASN1OctetString, ASN1OctetString> values = new LinkedHashMap<>(rawValues.length * 4 / 3 + 1);
+        for (ASN1OctetString rawValue : rawValues) {
+            ASN1OctetString key;
+            try {
+                key = matchingRule.normalize(rawValue);
+            } catch (LDAPException e) {
+                // 不符合語法的值無法正規化，以原始位元組比對
+                key = rawValue;
+            }
+            values.putIfAbsent(key, rawValue);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapLatencyStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 以對數-線性分桶記錄延遲（微秒）的直方圖，概念同 HdrHistogram
+ * 每個 2 的次方區間再分成 64 個等寬的子桶，百分位數的相對誤差約 1.6%；記錄只需一次原子遞增，可由多執行緒同時寫入
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 可記錄的最大值為 2^40 微秒（約 12 天），超過的值計入最後一個桶
+     */
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void recordNanos(long nanos) {
+        record(Math.max(0L, nanos) / 1000L);
+    }
+
+    void record(long micros) {
+        long value = Math.min(Math.max(0L, micros), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long getCount() {
+        return totalCount.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * 桶內可能的最大值；回報百分位數時取上界，不會低估延遲
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (subBucket + SUB_BUCKET_COUNT + 1) << shift) - 1;
+    }
+
+    /**
+     * 取得快照；與寫入同時進行時各項數字可能相差數筆
+     */
+    LdapLatencyStatistics snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long maxValue = max.get();
+        double mean = count == 0 ? 0.0 : (double) sum.get() / count;
+        return new LdapLatencyStatistics(count, mean,
+                percentile(snapshot, count, 50.0, maxValue),
+                percentile(snapshot, count, 95.0, maxValue),
+                percentile(snapshot, count, 99.0, maxValue),
+                maxValue);
+    }
+
+    private static long percentile(long[] snapshot, long count, double percentile, long maxValue) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
@@ -2,13 +2,30 @@ package com.ldapplugin.service.impl;
 
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapBatchResult;
+import com.ldapplugin.service.LdapCacheStatistics;
+import com.ldapplugin.service.LdapChangeListener;
+import com.ldapplugin.service.LdapChangeSubscription;
 import com.ldapplugin.service.LdapConnectionService;
+import com.ldapplugin.service.LdapConnectionStatistics;
+import com.ldapplugin.service.LdapEntryHandler;
+import com.ldapplugin.service.LdapOperationType;
+import com.ldapplugin.service.LdapSearchCursor;
+import com.ldapplugin.service.LdapSlowOperation;
+import com.ldapplugin.service.LdifImportResult;
 import com.ldapplugin.settings.LdapSettingsState;
 import com.unboundid.ldap.sdk.*;
+import com.unboundid.ldap.sdk.schema.Schema;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -18,11 +35,33 @@ import java.util.concurrent.ConcurrentMap;
 @Service
 public final class LdapConnectionServiceImpl implements LdapConnectionService {
     
+    private static final int ENTRY_CACHE_MAX_SIZE = 1000;
+    private static final long ENTRY_CACHE_TTL_MILLIS = 5 * 60 * 1000L;
+    private static final int SEARCH_CACHE_MAX_SIZE = 500;
+    private static final long SEARCH_CACHE_TTL_MILLIS = 60 * 1000L;
+    private static final int SEARCH_CACHE_MAX_ENTRIES_PER_RESULT = 5000;
+    private static final long SCHEMA_CHECK_INTERVAL_MILLIS = 60 * 1000L;
+    private static final int SLOW_OPERATION_LOG_CAPACITY = 500;
+    
     private final ConcurrentMap<String, LdapConnection> connections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LruTtlCache<String, Entry>> entryCaches = new ConcurrentHashMap<>();
+    private final SearchResultCache searchCache = new SearchResultCache(
+            SEARCH_CACHE_MAX_SIZE, SEARCH_CACHE_TTL_MILLIS, SEARCH_CACHE_MAX_ENTRIES_PER_RESULT);
+    private final SchemaCache schemaCache = new SchemaCache(SCHEMA_CHECK_INTERVAL_MILLIS);
+    private final ConcurrentMap<String, OperationMetrics> metrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SlowOperationLog> slowOperationLogs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RecentWrites> recentWrites = new ConcurrentHashMap<>();
     private final LdapSettingsState settingsState;
     
     public LdapConnectionServiceImpl() {
-        this.settingsState = ApplicationManager.getApplication().getService(LdapSettingsState.class);
+        this(ApplicationManager.getApplication().getService(LdapSettingsState.class));
+    }
+    
+    /**
+     * 以指定的設定狀態建立服務，供 IDE 以外的環境（例如基準測試）使用
+     */
+    LdapConnectionServiceImpl(LdapSettingsState settingsState) {
+        this.settingsState = settingsState;
         loadConnectionsFromSettings();
     }
     
@@ -46,6 +85,10 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
     @Override
     public void removeConnection(String connectionName) {
         LdapConnection connection = connections.remove(connectionName);
+        dropCaches(connectionName);
+        recentWrites.remove(connectionName);
+        metrics.remove(connectionName);
+        slowOperationLogs.remove(connectionName);
         if (connection != null) {
             connection.disconnect();
             saveConnectionsToSettings();
@@ -59,10 +102,14 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
         if (oldConnection != null) {
             oldConnection.disconnect();
         }
+        dropCaches(originalName);
+        recentWrites.remove(originalName);
         
         // 如果連線名稱改變了，需要移除舊的
         if (!originalName.equals(connection.getName())) {
             connections.remove(originalName);
+            metrics.remove(originalName);
+            slowOperationLogs.remove(originalName);
         }
         
         // 更新連線
@@ -87,7 +134,22 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
             return false;
         }
         
-        connection.connect();
+        // 只有設定門檻時才掛上記錄器，停用時連線上沒有任何額外成本
+        SlowOperationLog slowOperationLog = slowOperationLogs.computeIfAbsent(connectionName,
+                name -> new SlowOperationLog(SLOW_OPERATION_LOG_CAPACITY));
+        slowOperationLog.setThresholdMillis(connection.getSlowOperationThresholdMillis());
+        slowOperationLog.setSampleRate(connection.getSlowOperationSampleRate());
+        connection.setConnectionLogger(slowOperationLog.isEnabled() ? slowOperationLog : null);
+        
+        OperationMetrics operationMetrics = getMetrics(connectionName);
+        long start = System.nanoTime();
+        try {
+            connection.connect();
+        } catch (LDAPException e) {
+            operationMetrics.recordFailure(LdapOperationType.CONNECT, System.nanoTime() - start, e.getResultCode());
+            throw e;
+        }
+        operationMetrics.recordSuccess(LdapOperationType.CONNECT, System.nanoTime() - start, 0L, 0L);
         return connection.isConnected();
     }
     
@@ -97,6 +159,8 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
         if (connection != null) {
             connection.disconnect();
         }
+        dropCaches(connectionName);
+        recentWrites.remove(connectionName);
     }
     
     @Override
@@ -106,24 +170,14 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
     
     @Override
     public SearchResult search(String connectionName, String baseDn, String filter, String... attributes) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
-        }
-        
         SearchRequest searchRequest = new SearchRequest(baseDn, SearchScope.SUB, filter, attributes);
-        return connection.getConnection().search(searchRequest);
+        return searchAllPages(connectionName, searchRequest, LdapOperationType.SEARCH);
     }
     
     @Override
     public List<Entry> getChildren(String connectionName, String parentDn) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
-        }
-        
-        SearchRequest searchRequest = new SearchRequest(parentDn, SearchScope.ONE, "(objectClass=*)", "*");
-        SearchResult searchResult = connection.getConnection().search(searchRequest);
+        SearchRequest searchRequest = new SearchRequest(parentDn, SearchScope.ONE, "(objectClass=*)", TREE_ATTRIBUTES);
+        SearchResult searchResult = searchAllPages(connectionName, searchRequest, LdapOperationType.GET_CHILDREN);
         
         return searchResult.getSearchEntries().stream()
                 .map(searchEntry -> (Entry) searchEntry)
@@ -131,90 +185,531 @@ public final class LdapConnectionServiceImpl implements LdapConnectionService {
     }
     
     @Override
-    public void addEntry(String connectionName, Entry entry) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
+    public long searchStreaming(String connectionName, String baseDn, SearchScope scope, String filter, LdapEntryHandler handler, String... attributes) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        StreamingSearchListener listener = new StreamingSearchListener(handler);
+        SearchRequest searchRequest = new SearchRequest(listener, baseDn, scope, filter, attributes);
+        
+        // 每頁結果直接交給監聽器，記憶體用量只與單頁大小有關
+        try (PagedSearchCursor cursor = new PagedSearchCursor(connection, searchRequest, connection.getPageSize(),
+                getMetrics(connectionName), LdapOperationType.SEARCH, readFromReplica(connectionName, connection, baseDn))) {
+            while (!listener.isStopped() && cursor.nextPageResult() != null) {
+                // 持續讀取下一頁
+            }
         }
         
-        connection.getConnection().add(entry);
+        listener.rethrowIfFailed();
+        return listener.getEntryCount();
     }
     
     @Override
-    public void modifyEntry(String connectionName, String dn, String attributeName, String newValue) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
+    public LdapSearchCursor openSearchCursor(String connectionName, String baseDn, SearchScope scope, String filter, String... attributes) throws LDAPException {
+        SearchRequest searchRequest = new SearchRequest(baseDn, scope, filter, attributes);
+        return openSearchCursor(connectionName, searchRequest, LdapOperationType.SEARCH);
+    }
+    
+    @Override
+    public LdapSearchCursor openChildrenCursor(String connectionName, String parentDn) throws LDAPException {
+        SearchRequest searchRequest = new SearchRequest(parentDn, SearchScope.ONE, "(objectClass=*)", TREE_ATTRIBUTES);
+        return openSearchCursor(connectionName, searchRequest, LdapOperationType.GET_CHILDREN);
+    }
+    
+    private LdapSearchCursor openSearchCursor(String connectionName, SearchRequest searchRequest, LdapOperationType type) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        // 快取中已有完整結果時不需向伺服器查詢；完整讀完的結果也會寫回快取
+        PagedSearchCursor pagedCursor = new PagedSearchCursor(connection, searchRequest, connection.getPageSize(),
+                getMetrics(connectionName), type, readFromReplica(connectionName, connection, searchRequest.getBaseDN()));
+        return CachingSearchCursor.open(searchCache, connectionName, searchRequest, pagedCursor,
+                connection.getPageSize(), SEARCH_CACHE_MAX_ENTRIES_PER_RESULT);
+    }
+    
+    @Override
+    public long exportLdif(String connectionName, String baseDn, SearchScope scope, String filter, Path target,
+                           boolean compress, ProgressIndicator indicator) throws LDAPException, IOException {
+        return LdifExporter.export(this, connectionName, baseDn, scope, filter, target, compress, indicator);
+    }
+    
+    @Override
+    public LdifImportResult importLdif(String connectionName, Path source, ProgressIndicator indicator) throws LDAPException, IOException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        try {
+            return LdifImporter.importLdif(connection, source, connection.getBulkMaxInFlight(), indicator);
+        } finally {
+            recordWrite(connectionName, "", true);
+            // 匯入可能影響任何位置的條目，整個連線的快取一併失效
+            dropCaches(connectionName);
         }
-        
-        Modification modification = new Modification(ModificationType.REPLACE, attributeName, newValue);
-        ModifyRequest modifyRequest = new ModifyRequest(dn, modification);
-        
-        connection.getConnection().modify(modifyRequest);
     }
     
     @Override
-    public void modifyEntry(String connectionName, Entry originalEntry, Entry modifiedEntry) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
+    public long countMatches(String connectionName, String baseDn, SearchScope scope, String filter) throws LDAPException {
+        return searchStreaming(connectionName, baseDn, scope, filter, entry -> true, SearchRequest.NO_ATTRIBUTES);
+    }
+    
+    @Override
+    public LdapBatchResult batchModify(String connectionName, String baseDn, SearchScope scope, String filter,
+                                       List<Modification> modifications, ProgressIndicator indicator) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        SearchRequest dnSearch = new SearchRequest(baseDn, scope, filter, SearchRequest.NO_ATTRIBUTES);
+        try {
+            return BatchModifier.modify(connection, dnSearch, modifications, connection.getBulkMaxInFlight(), indicator);
+        } finally {
+            recordWrite(connectionName, baseDn, true);
+            dropCaches(connectionName);
+        }
+    }
+    
+    @Override
+    public boolean prefetchChildren(String connectionName, String parentDn) throws LDAPException {
+        // 只有一頁的結果會在讀完時由游標寫入快取；還有後續頁面時關閉游標即放棄
+        try (LdapSearchCursor cursor = openChildrenCursor(connectionName, parentDn)) {
+            cursor.nextPage();
+            return !cursor.hasMore();
+        }
+    }
+    
+    /**
+     * 逐頁讀取所有結果並合併成單一搜尋結果，避免觸發伺服器的大小限制
+     */
+    private SearchResult searchAllPages(String connectionName, SearchRequest searchRequest, LdapOperationType type) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        SearchResult cached = searchCache.get(connectionName, searchRequest);
+        if (cached != null) {
+            return cached;
         }
         
-        List<Modification> modifications = new ArrayList<>();
+        List<SearchResultEntry> entries = new ArrayList<>();
+        List<SearchResultReference> references = new ArrayList<>();
+        SearchResult lastResult = null;
         
-        // 比較原始條目和修改後的條目，找出差異
-        for (Attribute modifiedAttr : modifiedEntry.getAttributes()) {
-            String attrName = modifiedAttr.getName();
-            Attribute originalAttr = originalEntry.getAttribute(attrName);
-            
-            if (originalAttr == null) {
-                // 新增的屬性
-                modifications.add(new Modification(ModificationType.ADD, attrName, modifiedAttr.getValues()));
-            } else {
-                // 檢查屬性值是否有變更
-                String[] originalValues = originalAttr.getValues();
-                String[] modifiedValues = modifiedAttr.getValues();
-                
-                if (!java.util.Arrays.equals(originalValues, modifiedValues)) {
-                    // 屬性值有變更，替換整個屬性
-                    modifications.add(new Modification(ModificationType.REPLACE, attrName, modifiedValues));
-                }
+        try (PagedSearchCursor cursor = new PagedSearchCursor(connection, searchRequest, connection.getPageSize(),
+                getMetrics(connectionName), type, readFromReplica(connectionName, connection, searchRequest.getBaseDN()))) {
+            SearchResult pageResult;
+            while ((pageResult = cursor.nextPageResult()) != null) {
+                entries.addAll(pageResult.getSearchEntries());
+                references.addAll(pageResult.getSearchReferences());
+                lastResult = pageResult;
             }
         }
         
-        // 檢查是否有被刪除的屬性
-        for (Attribute originalAttr : originalEntry.getAttributes()) {
-            String attrName = originalAttr.getName();
-            if (modifiedEntry.getAttribute(attrName) == null) {
-                // 屬性被刪除
-                modifications.add(new Modification(ModificationType.DELETE, attrName));
+        SearchResult result = SearchResultCache.aggregate(lastResult, entries, references);
+        searchCache.put(connectionName, searchRequest, result);
+        return result;
+    }
+    
+    @Override
+    public LdapChangeSubscription watchChanges(String connectionName, String baseDn, LdapChangeListener listener) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        
+        // 收到變更時先失效快取，再轉交給呼叫端
+        LdapChangeListener invalidatingListener = new LdapChangeListener() {
+            @Override
+            public void entryAdded(Entry entry) {
+                invalidateEntry(connectionName, entry.getDN());
+                listener.entryAdded(entry);
+            }
+            
+            @Override
+            public void entryModified(Entry entry) {
+                invalidateEntry(connectionName, entry.getDN());
+                listener.entryModified(entry);
+            }
+            
+            @Override
+            public void entryDeleted(String dn) {
+                invalidateSubtree(connectionName, dn);
+                listener.entryDeleted(dn);
+            }
+            
+            @Override
+            public void entryRenamed(String previousDn, Entry entry) {
+                invalidateSubtree(connectionName, previousDn);
+                invalidateEntry(connectionName, entry.getDN());
+                listener.entryRenamed(previousDn, entry);
+            }
+            
+            @Override
+            public void watchEnded(LDAPException cause) {
+                listener.watchEnded(cause);
             }
+        };
+        
+        return ChangeNotificationWatcher.start(connection, baseDn, invalidatingListener, TREE_ATTRIBUTES);
+    }
+    
+    @Override
+    public Schema getSchema(String connectionName) throws LDAPException {
+        return execute(connectionName, ldap -> schemaCache.get(connectionName, ldap));
+    }
+    
+    /**
+     * 結構描述只用來改善比對，讀取失敗（例如沒有讀取權限）時以沒有結構描述的方式處理
+     */
+    private Schema getSchemaOrNull(String connectionName) {
+        try {
+            return getSchema(connectionName);
+        } catch (LDAPException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public LdapCacheStatistics getSearchCacheStatistics() {
+        return searchCache.getStatistics();
+    }
+    
+    @Override
+    public LdapConnectionStatistics getStatistics(String connectionName) {
+        OperationMetrics operationMetrics = metrics.get(connectionName);
+        if (operationMetrics == null) {
+            operationMetrics = new OperationMetrics();
+        }
+        return operationMetrics.snapshot(connectionName);
+    }
+    
+    @Override
+    public void resetStatistics(String connectionName) {
+        metrics.remove(connectionName);
+    }
+    
+    @Override
+    public List<LdapSlowOperation> getSlowOperations(String connectionName) {
+        SlowOperationLog slowOperationLog = slowOperationLogs.get(connectionName);
+        return slowOperationLog == null ? Collections.emptyList() : slowOperationLog.getRecords();
+    }
+    
+    @Override
+    public void clearSlowOperations(String connectionName) {
+        SlowOperationLog slowOperationLog = slowOperationLogs.get(connectionName);
+        if (slowOperationLog != null) {
+            slowOperationLog.clear();
         }
+    }
+    
+    private OperationMetrics getMetrics(String connectionName) {
+        return metrics.computeIfAbsent(connectionName, name -> new OperationMetrics());
+    }
+    
+    @Override
+    public void addEntry(String connectionName, Entry entry) throws LDAPException {
+        execute(connectionName, LdapOperationType.ADD, ldap -> ldap.add(entry));
+        recordWrite(connectionName, entry.getDN(), false);
+        invalidateEntry(connectionName, entry.getDN());
+    }
+    
+    @Override
+    public void modifyEntry(String connectionName, String dn, String attributeName, String newValue) throws LDAPException {
+        Modification modification = new Modification(ModificationType.REPLACE, attributeName, newValue);
+        ModifyRequest modifyRequest = new ModifyRequest(dn, modification);
+        
+        execute(connectionName, LdapOperationType.MODIFY, ldap -> ldap.modify(modifyRequest));
+        recordWrite(connectionName, dn, false);
+        invalidateEntry(connectionName, dn);
+    }
+    
+    @Override
+    public void modifyEntry(String connectionName, Entry originalEntry, Entry modifiedEntry) throws LDAPException {
+        // 逐值比較原始條目和修改後的條目，只送出有變更的值
+        List<Modification> modifications = EntryDiffEngine.diff(originalEntry, modifiedEntry, getSchemaOrNull(connectionName));
         
         // 如果有修改，執行修改請求
         if (!modifications.isEmpty()) {
             ModifyRequest modifyRequest = new ModifyRequest(originalEntry.getDN(), modifications);
-            connection.getConnection().modify(modifyRequest);
+            execute(connectionName, LdapOperationType.MODIFY, ldap -> ldap.modify(modifyRequest));
+            recordWrite(connectionName, originalEntry.getDN(), false);
+            invalidateEntry(connectionName, originalEntry.getDN());
         }
     }
     
     @Override
     public void deleteEntry(String connectionName, String dn) throws LDAPException {
-        LdapConnection connection = connections.get(connectionName);
-        if (connection == null || !connection.isConnected()) {
-            throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
+        execute(connectionName, LdapOperationType.DELETE, ldap -> ldap.delete(dn));
+        recordWrite(connectionName, dn, false);
+        invalidateSubtree(connectionName, dn);
+    }
+    
+    @Override
+    public LdapBatchResult deleteSubtree(String connectionName, String dn, ProgressIndicator indicator) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        try {
+            return SubtreeDeleter.delete(connection, dn, connection.getBulkMaxInFlight(), indicator);
+        } finally {
+            recordWrite(connectionName, dn, true);
+            invalidateSubtree(connectionName, dn);
         }
-        
-        connection.getConnection().delete(dn);
     }
     
     @Override
     public Entry getEntry(String connectionName, String dn) throws LDAPException {
+        LruTtlCache<String, Entry> cache = getEntryCache(connectionName);
+        String key = normalizeDn(dn);
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        LdapConnection connection = getConnectedConnection(connectionName);
+        Entry entry = execute(connectionName, LdapOperationType.GET_ENTRY, readFromReplica(connectionName, connection, dn),
+                ldap -> ldap.getEntry(dn));
+        if (entry != null) {
+            cache.put(key, entry);
+        }
+        return entry;
+    }
+    
+    @Override
+    public Entry getEntryForUpdate(String connectionName, String dn) throws LDAPException {
+        // 讀寫分離時也由主要伺服器讀取，讀取伺服器可能尚未收到其他人的寫入
+        Entry entry = execute(connectionName, LdapOperationType.GET_ENTRY, ldap -> ldap.getEntry(dn));
+        LruTtlCache<String, Entry> cache = getEntryCache(connectionName);
+        if (entry != null) {
+            cache.put(normalizeDn(dn), entry);
+        } else {
+            cache.remove(normalizeDn(dn));
+        }
+        return entry;
+    }
+    
+    private LruTtlCache<String, Entry> getEntryCache(String connectionName) {
+        return entryCaches.computeIfAbsent(connectionName,
+                name -> new LruTtlCache<>(ENTRY_CACHE_MAX_SIZE, ENTRY_CACHE_TTL_MILLIS));
+    }
+    
+    /**
+     * 條目新增或修改後，失效該條目及涵蓋它的搜尋結果
+     */
+    private void invalidateEntry(String connectionName, String dn) {
+        LruTtlCache<String, Entry> cache = entryCaches.get(connectionName);
+        if (cache != null) {
+            cache.remove(normalizeDn(dn));
+        }
+        searchCache.invalidate(connectionName, dn, false);
+    }
+    
+    /**
+     * 條目刪除後，失效整個子樹的條目與搜尋結果
+     */
+    private void invalidateSubtree(String connectionName, String dn) {
+        LruTtlCache<String, Entry> cache = entryCaches.get(connectionName);
+        if (cache != null) {
+            String baseKey = normalizeDn(dn);
+            cache.removeIf(key -> isDescendantOrSelf(key, baseKey));
+        }
+        searchCache.invalidate(connectionName, dn, true);
+    }
+    
+    /**
+     * 讀寫分離時記錄寫入，讓之後涵蓋該條目的讀取在設定的時間內改由主要伺服器處理
+     * 須在失效快取之前呼叫，否則兩者之間的讀取可能從讀取伺服器取得舊資料並寫回快取
+     */
+    private void recordWrite(String connectionName, String dn, boolean subtree) {
+        LdapConnection connection = connections.get(connectionName);
+        if (connection == null || !connection.hasReadReplicas() || connection.getReadYourWritesWindowMillis() <= 0) {
+            return;
+        }
+        recentWrites.computeIfAbsent(connectionName, name -> new RecentWrites())
+                .record(dn, subtree, connection.getReadYourWritesWindowMillis());
+    }
+    
+    /**
+     * 以 baseDn 為基底的讀取是否交給讀取伺服器；範圍內有最近寫入的條目時改讀主要伺服器，避免讀到尚未複寫的資料
+     */
+    private boolean readFromReplica(String connectionName, LdapConnection connection, String baseDn) {
+        if (!connection.hasReadReplicas()) {
+            return false;
+        }
+        RecentWrites writes = recentWrites.get(connectionName);
+        return writes == null || !writes.affects(baseDn);
+    }
+    
+    /**
+     * 清除連線的所有快取；基準測試也以此量測未命中快取的查詢
+     */
+    void dropCaches(String connectionName) {
+        entryCaches.remove(connectionName);
+        searchCache.invalidateConnection(connectionName);
+        schemaCache.invalidate(connectionName);
+    }
+    
+    private static String normalizeDn(String dn) {
+        try {
+            return DN.normalize(dn);
+        } catch (LDAPException e) {
+            return dn.toLowerCase();
+        }
+    }
+    
+    private static boolean isDescendantOrSelf(String dn, String baseDn) {
+        try {
+            return DN.isDescendantOf(dn, baseDn, true);
+        } catch (LDAPException e) {
+            return dn.equals(baseDn);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<SearchResult> searchAsync(String connectionName, String baseDn, String filter, String... attributes) {
+        LdapConnection connection = connections.get(connectionName);
+        boolean readReplica = connection != null && readFromReplica(connectionName, connection, baseDn);
+        return executeAsync(connectionName, readReplica, ldap -> AsyncLdapOperations.search(ldap,
+                new SearchRequest(baseDn, SearchScope.SUB, filter, attributes)));
+    }
+    
+    @Override
+    public CompletableFuture<LDAPResult> addEntryAsync(String connectionName, Entry entry) {
+        CompletableFuture<LDAPResult> future = executeAsync(connectionName, false, ldap -> AsyncLdapOperations.add(ldap, new AddRequest(entry)));
+        // 回傳失效快取後的階段，呼叫端接續的讀取才不會在失效前執行
+        return future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                recordWrite(connectionName, entry.getDN(), false);
+            }
+            invalidateEntry(connectionName, entry.getDN());
+        });
+    }
+    
+    @Override
+    public CompletableFuture<LDAPResult> modifyEntryAsync(String connectionName, String dn, List<Modification> modifications) {
+        CompletableFuture<LDAPResult> future = executeAsync(connectionName, false, ldap -> AsyncLdapOperations.modify(ldap, new ModifyRequest(dn, modifications)));
+        return future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                recordWrite(connectionName, dn, false);
+            }
+            invalidateEntry(connectionName, dn);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<LDAPResult> deleteEntryAsync(String connectionName, String dn) {
+        CompletableFuture<LDAPResult> future = executeAsync(connectionName, false, ldap -> AsyncLdapOperations.delete(ldap, new DeleteRequest(dn)));
+        return future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                recordWrite(connectionName, dn, false);
+            }
+            invalidateSubtree(connectionName, dn);
+        });
+    }
+    
+    private LdapConnection getConnectedConnection(String connectionName) throws LDAPException {
         LdapConnection connection = connections.get(connectionName);
         if (connection == null || !connection.isConnected()) {
             throw new LDAPException(ResultCode.CONNECT_ERROR, "連線不存在或未連線");
         }
+        return connection;
+    }
+    
+    /**
+     * 從連線（池）取出一條連線執行操作，不計入操作統計
+     */
+    private <T> T execute(String connectionName, LdapOperation<T> operation) throws LDAPException {
+        return execute(connectionName, null, false, operation);
+    }
+    
+    /**
+     * 從主要連線池取出一條連線執行操作，並記錄操作統計
+     */
+    private <T> T execute(String connectionName, LdapOperationType type, LdapOperation<T> operation) throws LDAPException {
+        return execute(connectionName, type, false, operation);
+    }
+    
+    /**
+     * 從連線（池）取出一條連線執行操作，完成後歸還；若連線已失效則交由連線池汰換
+     * 指定操作類型時記錄延遲、回傳的條目與資料量以及錯誤結果碼；readReplica 為 true 時從讀取連線池取出
+     */
+    private <T> T execute(String connectionName, LdapOperationType type, boolean readReplica,
+                          LdapOperation<T> operation) throws LDAPException {
+        LdapConnection connection = getConnectedConnection(connectionName);
+        OperationMetrics operationMetrics = getMetrics(connectionName);
+        
+        LDAPConnection ldapConnection = operationMetrics.checkout(connection, readReplica);
+        long start = System.nanoTime();
+        boolean defunct = false;
+        try {
+            T result = operation.execute(ldapConnection);
+            if (type != null) {
+                recordSuccess(operationMetrics, type, System.nanoTime() - start, result);
+            }
+            return result;
+        } catch (LDAPException e) {
+            defunct = !ResultCode.isConnectionUsable(e.getResultCode());
+            if (type != null) {
+                operationMetrics.recordFailure(type, System.nanoTime() - start, e.getResultCode());
+            }
+            throw e;
+        } finally {
+            if (readReplica) {
+                if (defunct) {
+                    connection.releaseDefunctReadConnection(ldapConnection);
+                } else {
+                    connection.releaseReadConnection(ldapConnection);
+                }
+            } else if (defunct) {
+                connection.releaseDefunctConnection(ldapConnection);
+            } else {
+                connection.releaseConnection(ldapConnection);
+            }
+        }
+    }
+    
+    private static void recordSuccess(OperationMetrics operationMetrics, LdapOperationType type, long durationNanos, Object result) {
+        if (result instanceof Entry) {
+            operationMetrics.recordSuccess(type, durationNanos, 1L, OperationMetrics.entryBytes((Entry) result));
+        } else {
+            operationMetrics.recordSuccess(type, durationNanos, 0L, 0L);
+        }
+    }
+    
+    /**
+     * 在連線的非同步共用連線上送出請求，請求完成後歸還；錯誤一律以失敗的 future 回報
+     * @param readReplica 讀寫分離時是否改用讀取連線池
+     */
+    private <T> CompletableFuture<T> executeAsync(String connectionName, boolean readReplica, AsyncLdapOperation<T> operation) {
+        LdapConnection connection;
+        LDAPConnection ldap;
+        try {
+            connection = getConnectedConnection(connectionName);
+            ldap = readReplica ? connection.checkoutReadAsyncConnection() : connection.checkoutAsyncConnection();
+        } catch (LDAPException e) {
+            return CompletableFuture.failedFuture(e);
+        }
         
-        return connection.getConnection().getEntry(dn);
+        CompletableFuture<T> future;
+        try {
+            future = operation.execute(ldap);
+        } catch (LDAPException e) {
+            releaseAsync(connection, readReplica, ldap, !ResultCode.isConnectionUsable(e.getResultCode()));
+            return CompletableFuture.failedFuture(e);
+        }
+        // 連線已不可用（例如連線被靜默中斷後逾時）時不再讓後續請求共用該連線
+        future.whenComplete((result, throwable) -> {
+            Throwable cause = throwable == null ? null : BatchStatistics.unwrap(throwable);
+            boolean defunct = cause != null && !(cause instanceof CancellationException)
+                    && !ResultCode.isConnectionUsable(BatchStatistics.resultCodeOf(cause));
+            releaseAsync(connection, readReplica, ldap, defunct);
+        });
+        return future;
+    }
+    
+    private static void releaseAsync(LdapConnection connection, boolean readReplica, LDAPConnection ldap, boolean defunct) {
+        if (readReplica) {
+            connection.releaseReadAsyncConnection(ldap, defunct);
+        } else {
+            connection.releaseAsyncConnection(ldap, defunct);
+        }
+    }
+    
+    /**
+     * 在單一 LDAP 連線上執行的操作
+     */
+    @FunctionalInterface
+    private interface LdapOperation<T> {
+        T execute(LDAPConnection connection) throws LDAPException;
+    }
+    
+    /**
+     * 在單一 LDAP 連線上送出的非同步操作
+     */
+    @FunctionalInterface
+    private interface AsyncLdapOperation<T> {
+        CompletableFuture<T> execute(LDAPConnection connection) throws LDAPException;
     }
 }
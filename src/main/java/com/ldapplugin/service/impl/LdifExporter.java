@@ -0,0 +1,97 @@
+package com.ldapplugin.service.impl;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.ldapplugin.service.LdapConnectionService;
+import com.ldapplugin.service.LdapEntryHandler;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldif.LDIFWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LDIF 匯出
+ * 以分頁的串流搜尋逐筆寫入檔案，記憶體用量只與單頁大小有關；先寫入暫存檔，完成後才取代目標檔案
+ */
+final class LdifExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private LdifExporter() {
+    }
+
+    static long export(LdapConnectionService service, String connectionName, String baseDn, SearchScope scope,
+                       String filter, Path target, boolean compress, ProgressIndicator indicator)
+            throws LDAPException, IOException {
+        Path partFile = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            ExportHandler handler;
+            try (LDIFWriter writer = new LDIFWriter(openOutput(partFile, compress))) {
+                handler = new ExportHandler(writer, indicator);
+                service.searchStreaming(connectionName, baseDn, scope, filter, handler, "*");
+                handler.rethrowIfFailed();
+            }
+            if (indicator != null) {
+                indicator.checkCanceled();
+            }
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+            return handler.written;
+        } catch (IOException | LDAPException | RuntimeException e) {
+            // 失敗或取消時不留下不完整的檔案
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+    }
+
+    private static OutputStream openOutput(Path file, boolean compress) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        if (compress) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return out;
+    }
+
+    private static final class ExportHandler implements LdapEntryHandler {
+        private final LDIFWriter writer;
+        private final ProgressIndicator indicator;
+        private long written;
+        private IOException failure;
+
+        private ExportHandler(LDIFWriter writer, ProgressIndicator indicator) {
+            this.writer = writer;
+            this.indicator = indicator;
+        }
+
+        @Override
+        public boolean handleEntry(Entry entry) {
+            if (indicator != null && indicator.isCanceled()) {
+                return false;
+            }
+            try {
+                writer.writeEntry(entry);
+            } catch (IOException e) {
+                failure = e;
+                return false;
+            }
+            written++;
+            if (indicator != null && written % PROGRESS_INTERVAL == 0) {
+                indicator.setText2("已匯出 " + written + " 筆");
+            }
+            return true;
+        }
+
+        void rethrowIfFailed() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
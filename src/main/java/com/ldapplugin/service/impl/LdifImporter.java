@@ -0,0 +1,253 @@
+package com.ldapplugin.service.impl;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdifImportResult;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldif.LDIFAddChangeRecord;
+import com.unboundid.ldif.LDIFChangeRecord;
+import com.unboundid.ldif.LDIFDeleteChangeRecord;
+import com.unboundid.ldif.LDIFException;
+import com.unboundid.ldif.LDIFModifyChangeRecord;
+import com.unboundid.ldif.LDIFModifyDNChangeRecord;
+import com.unboundid.ldif.LDIFReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * LDIF 匯入
+ * LDIFReader 以多個解析執行緒讀取記錄，變更以非同步請求分散到數條池連線上，同時進行的請求數以視窗限制。
+ * 同一 DN 的記錄依檔案中的順序逐筆送出，父條目仍在處理中時，子條目等父條目完成後才送出；
+ * 因順序問題失敗（父條目不存在、刪除非葉節點）的記錄留到最後依 DN 深度排序重試：新增與修改由淺到深，刪除由深到淺
+ */
+final class LdifImporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final String PARSE_ERROR = "LDIF parse error";
+
+    private final AsyncRequestWindow window;
+    private final ProgressIndicator indicator;
+    private final ConcurrentMap<DN, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<LDIFChangeRecord> retryQueue = new ConcurrentLinkedQueue<>();
+    private final BatchStatistics statistics = new BatchStatistics();
+    private long records;
+    private long retriedCount;
+
+    private LdifImporter(AsyncRequestWindow window, ProgressIndicator indicator) {
+        this.window = window;
+        this.indicator = indicator;
+    }
+
+    static LdifImportResult importLdif(LdapConnection connection, Path source, int maxInFlight,
+                                       ProgressIndicator indicator) throws IOException {
+        try (AsyncRequestWindow window = new AsyncRequestWindow(connection, maxInFlight)) {
+            return new LdifImporter(window, indicator).run(source);
+        }
+    }
+
+    private LdifImportResult run(Path source) throws IOException {
+        long startTime = System.currentTimeMillis();
+        boolean canceled = false;
+        try (LDIFReader reader = new LDIFReader(openInput(source), Runtime.getRuntime().availableProcessors())) {
+            while (true) {
+                if (indicator != null && indicator.isCanceled()) {
+                    canceled = true;
+                    break;
+                }
+                LDIFChangeRecord record;
+                try {
+                    record = reader.readChangeRecord(true);
+                } catch (LDIFException e) {
+                    records++;
+                    statistics.recordFailure(PARSE_ERROR, "line " + e.getLineNumber() + ": " + e.getMessage());
+                    if (!e.mayContinueReading()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                records++;
+                submit(record, false);
+            }
+            window.awaitIdle();
+
+            if (!canceled) {
+                retryFailedRecords();
+            }
+        } finally {
+            window.awaitIdle();
+        }
+
+        return new LdifImportResult(records, statistics.getSucceeded(), statistics.getFailed(), retriedCount,
+                System.currentTimeMillis() - startTime, canceled,
+                statistics.getErrorsByResultCode(), statistics.getErrorSamples());
+    }
+
+    private static InputStream openInput(Path source) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE);
+        if (source.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * 送出一筆變更；視窗已滿時阻塞讀取執行緒
+     * 同一 DN 的前一筆記錄或父條目仍在處理中時，接在它們之後送出
+     */
+    private void submit(LDIFChangeRecord record, boolean retry) {
+        DN dn;
+        try {
+            dn = record.getParsedDN();
+        } catch (LDAPException e) {
+            statistics.recordFailure(record.getDN(), e);
+            return;
+        }
+
+        window.acquire();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        // 只有讀取執行緒會放入記錄，取代的前一筆即為同一 DN 尚未完成的記錄
+        CompletableFuture<Void> previous = inFlight.put(dn, done);
+        CompletableFuture<Void> ancestor = findInFlightAncestor(dn.getParent());
+        CompletableFuture<Void> predecessor;
+        if (previous != null && ancestor != null) {
+            predecessor = CompletableFuture.allOf(previous, ancestor);
+        } else {
+            predecessor = previous != null ? previous : ancestor;
+        }
+
+        Runnable send = () -> send(record).whenComplete((result, throwable) -> {
+            complete(record, throwable, retry);
+            inFlight.remove(dn, done);
+            done.complete(null);
+            window.release();
+        });
+        if (predecessor != null) {
+            predecessor.whenComplete((result, throwable) -> send.run());
+        } else {
+            send.run();
+        }
+    }
+
+    private CompletableFuture<Void> findInFlightAncestor(DN parentDn) {
+        for (DN parent = parentDn; parent != null; parent = parent.getParent()) {
+            CompletableFuture<Void> future = inFlight.get(parent);
+            if (future != null) {
+                return future;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<LDAPResult> send(LDIFChangeRecord record) {
+        LDAPConnection ldap;
+        try {
+            ldap = window.nextConnection();
+        } catch (LDAPException e) {
+            CompletableFuture<LDAPResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (record instanceof LDIFAddChangeRecord) {
+            return AsyncLdapOperations.add(ldap, ((LDIFAddChangeRecord) record).toAddRequest());
+        } else if (record instanceof LDIFModifyChangeRecord) {
+            return AsyncLdapOperations.modify(ldap, ((LDIFModifyChangeRecord) record).toModifyRequest());
+        } else if (record instanceof LDIFDeleteChangeRecord) {
+            return AsyncLdapOperations.delete(ldap, ((LDIFDeleteChangeRecord) record).toDeleteRequest());
+        } else {
+            return AsyncLdapOperations.modifyDN(ldap, ((LDIFModifyDNChangeRecord) record).toModifyDNRequest());
+        }
+    }
+
+    private void complete(LDIFChangeRecord record, Throwable throwable, boolean retry) {
+        if (throwable == null) {
+            statistics.recordSuccess();
+        } else {
+            ResultCode resultCode = BatchStatistics.resultCodeOf(BatchStatistics.unwrap(throwable));
+            boolean orderingProblem = resultCode == ResultCode.NO_SUCH_OBJECT
+                    || resultCode == ResultCode.NOT_ALLOWED_ON_NONLEAF;
+            if (!retry && orderingProblem) {
+                retryQueue.add(record);
+            } else {
+                statistics.recordFailure(record.getDN(), throwable);
+            }
+        }
+
+        long processed = statistics.getProcessed();
+        if (indicator != null && processed % PROGRESS_INTERVAL == 0) {
+            indicator.setText2("已處理 " + processed + " 筆（成功 " + statistics.getSucceeded()
+                    + "，失敗 " + statistics.getFailed() + "）");
+        }
+    }
+
+    /**
+     * 依 DN 深度分批重試：同一深度的記錄可平行送出，每批完成後才進行下一批
+     * 同一 DN 的記錄都歸入該 DN 第一筆記錄的批次，並依原本的順序逐筆送出
+     */
+    private void retryFailedRecords() {
+        List<LDIFChangeRecord> retries = new ArrayList<>(retryQueue);
+        retryQueue.clear();
+        if (retries.isEmpty()) {
+            return;
+        }
+        retriedCount = retries.size();
+        if (indicator != null) {
+            indicator.setText2("重試 " + retries.size() + " 筆因順序失敗的記錄");
+        }
+
+        TreeMap<Integer, List<LDIFChangeRecord>> batches = new TreeMap<>();
+        Map<String, Integer> batchByDn = new HashMap<>();
+        for (LDIFChangeRecord record : retries) {
+            int key = batchByDn.computeIfAbsent(normalizedDnOf(record), dn -> {
+                int depth = depthOf(record);
+                // 刪除由深到淺，其他變更由淺到深
+                return record instanceof LDIFDeleteChangeRecord ? Integer.MAX_VALUE - depth : depth;
+            });
+            batches.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+        for (List<LDIFChangeRecord> batch : batches.values()) {
+            for (LDIFChangeRecord record : batch) {
+                submit(record, true);
+            }
+            window.awaitIdle();
+        }
+    }
+
+    private static String normalizedDnOf(LDIFChangeRecord record) {
+        try {
+            return record.getParsedDN().toNormalizedString();
+        } catch (LDAPException e) {
+            return record.getDN();
+        }
+    }
+
+    private static int depthOf(LDIFChangeRecord record) {
+        try {
+            return record.getParsedDN().getRDNs().length;
+        } catch (LDAPException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ldapplugin.service.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 具容量上限（LRU 淘汰）與存活時間的快取
+ */
+final class LruTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, CachedValue<V>> values;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    LruTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > LruTtlCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        CachedValue<V> cached = values.get(key);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            values.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.value;
+    }
+
+    synchronized void put(K key, V value) {
+        values.put(key, new CachedValue<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    synchronized void remove(K key) {
+        values.remove(key);
+    }
+
+    /**
+     * 移除所有符合條件的鍵
+     */
+    synchronized void removeIf(Predicate<K> predicate) {
+        Iterator<K> iterator = values.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (predicate.test(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        values.clear();
+    }
+
+    synchronized int size() {
+        return values.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static final class CachedValue<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapConnectionStatistics;
+import com.ldapplugin.service.LdapOperationStatistics;
+import com.ldapplugin.service.LdapOperationType;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單一連線的操作統計：各操作類型的延遲直方圖、條目數、條目資料量與錯誤數，以及連線池等待時間
+ * 所有計數皆可由多執行緒同時更新
+ */
+final class OperationMetrics {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final OperationStats[] operations = new OperationStats[LdapOperationType.values().length];
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+    private final ConcurrentMap<ResultCode, AtomicLong> errorsByResultCode = new ConcurrentHashMap<>();
+
+    OperationMetrics() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationStats();
+        }
+    }
+
+    /**
+     * 取出一條連線並記錄等待時間；未使用連線池時取出的是共用連線，不計入等待
+     */
+    LDAPConnection checkout(LdapConnection connection) throws LDAPException {
+        return checkout(connection, false);
+    }
+
+    /**
+     * @param readReplica 是否從讀取連線池取出；沒有讀取連線池時與主要連線池相同
+     */
+    LDAPConnection checkout(LdapConnection connection, boolean readReplica) throws LDAPException {
+        if (!connection.isUsePool()) {
+            return connection.checkoutConnection();
+        }
+        long start = System.nanoTime();
+        LDAPConnection ldapConnection = readReplica ? connection.checkoutReadConnection() : connection.checkoutConnection();
+        poolWait.recordNanos(System.nanoTime() - start);
+        return ldapConnection;
+    }
+
+    void recordSuccess(LdapOperationType type, long durationNanos, long entries, long entryBytes) {
+        OperationStats stats = operations[type.ordinal()];
+        stats.latency.recordNanos(durationNanos);
+        stats.entries.addAndGet(entries);
+        stats.entryBytes.addAndGet(entryBytes);
+    }
+
+    void recordFailure(LdapOperationType type, long durationNanos, ResultCode resultCode) {
+        OperationStats stats = operations[type.ordinal()];
+        stats.latency.recordNanos(durationNanos);
+        stats.errors.incrementAndGet();
+        errorsByResultCode.computeIfAbsent(resultCode, code -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * 搜尋結果中條目的資料量；交給監聽器串流處理的條目不在結果中，不會計入
+     */
+    static long entryBytes(SearchResult result) {
+        long bytes = 0;
+        if (result.getSearchEntries() != null) {
+            for (Entry entry : result.getSearchEntries()) {
+                bytes += entryBytes(entry);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 條目的 DN、屬性名稱與值的位元組數，不含 BER 編碼與協定的額外負擔
+     */
+    static long entryBytes(Entry entry) {
+        long bytes = entry.getDN().length();
+        for (Attribute attribute : entry.getAttributes()) {
+            bytes += attribute.getName().length();
+            for (ASN1OctetString value : attribute.getRawValues()) {
+                bytes += value.getValueLength();
+            }
+        }
+        return bytes;
+    }
+
+    LdapConnectionStatistics snapshot(String connectionName) {
+        LdapOperationType[] types = LdapOperationType.values();
+        List<LdapOperationStatistics> operationStatistics = new ArrayList<>(types.length);
+        for (LdapOperationType type : types) {
+            OperationStats stats = operations[type.ordinal()];
+            operationStatistics.add(new LdapOperationStatistics(type, stats.latency.snapshot(),
+                    stats.errors.get(), stats.entries.get(), stats.entryBytes.get()));
+        }
+
+        List<Map.Entry<ResultCode, AtomicLong>> errors = new ArrayList<>(errorsByResultCode.entrySet());
+        errors.sort((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()));
+        Map<String, Long> errorCounts = new LinkedHashMap<>();
+        for (Map.Entry<ResultCode, AtomicLong> error : errors) {
+            errorCounts.put(error.getKey().toString(), error.getValue().get());
+        }
+
+        return new LdapConnectionStatistics(connectionName, startedAt, operationStatistics,
+                poolWait.snapshot(), errorCounts);
+    }
+
+    private static final class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong entryBytes = new AtomicLong();
+    }
+}
@@ -0,0 +1,152 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapOperationType;
+import com.ldapplugin.service.LdapSearchCursor;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 以 Simple Paged Results 控制項實作的搜尋游標
+ * 分頁 cookie 在多數伺服器上只對同一條連線有效，因此游標在讀完前會固定占用一條連線
+ * 指定統計時每一頁各記錄為一次操作；讀寫分離時可指定從讀取連線池取得連線
+ */
+final class PagedSearchCursor implements LdapSearchCursor {
+
+    private final LdapConnection connection;
+    private final SearchRequest searchRequest;
+    private final int pageSize;
+    private final OperationMetrics metrics;
+    private final LdapOperationType operationType;
+    private final boolean readReplica;
+    private LDAPConnection pinnedConnection;
+    private ASN1OctetString cookie;
+    private boolean hasMore = true;
+    private int fetchedCount;
+
+    PagedSearchCursor(LdapConnection connection, SearchRequest searchRequest, int pageSize) {
+        this(connection, searchRequest, pageSize, null, null, false);
+    }
+
+    PagedSearchCursor(LdapConnection connection, SearchRequest searchRequest, int pageSize,
+                      OperationMetrics metrics, LdapOperationType operationType, boolean readReplica) {
+        this.connection = connection;
+        this.searchRequest = searchRequest;
+        this.pageSize = Math.max(1, pageSize);
+        this.metrics = metrics;
+        this.operationType = operationType;
+        this.readReplica = readReplica;
+    }
+
+    @Override
+    public synchronized List<Entry> nextPage() throws LDAPException {
+        SearchResult result = nextPageResult();
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(result.getSearchEntries());
+    }
+
+    /**
+     * 取得下一頁的原始搜尋結果；沒有更多頁面時回傳 null
+     */
+    synchronized SearchResult nextPageResult() throws LDAPException {
+        if (!hasMore) {
+            return null;
+        }
+
+        if (pinnedConnection == null) {
+            if (metrics != null) {
+                pinnedConnection = metrics.checkout(connection, readReplica);
+            } else {
+                pinnedConnection = readReplica ? connection.checkoutReadConnection() : connection.checkoutConnection();
+            }
+        }
+
+        SearchRequest pageRequest = searchRequest.duplicate();
+        pageRequest.replaceControl(new SimplePagedResultsControl(pageSize, cookie, false));
+
+        long start = System.nanoTime();
+        SearchResult result;
+        try {
+            result = pinnedConnection.search(pageRequest);
+        } catch (LDAPException e) {
+            if (metrics != null) {
+                metrics.recordFailure(operationType, System.nanoTime() - start, e.getResultCode());
+            }
+            releaseConnection(!ResultCode.isConnectionUsable(e.getResultCode()));
+            hasMore = false;
+            throw e;
+        }
+        if (metrics != null) {
+            metrics.recordSuccess(operationType, System.nanoTime() - start, result.getEntryCount(),
+                    OperationMetrics.entryBytes(result));
+        }
+
+        fetchedCount += result.getEntryCount();
+
+        // 伺服器未回傳分頁控制項（不支援分頁）或 cookie 為空時即為最後一頁
+        SimplePagedResultsControl responseControl = SimplePagedResultsControl.get(result);
+        if (responseControl != null && responseControl.moreResultsToReturn()) {
+            cookie = responseControl.getCookie();
+        } else {
+            hasMore = false;
+            releaseConnection(false);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public synchronized int getFetchedCount() {
+        return fetchedCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (hasMore && cookie != null && pinnedConnection != null) {
+            // 以頁面大小 0 通知伺服器釋放尚未讀完的分頁狀態
+            try {
+                SearchRequest abandonRequest = searchRequest.duplicate();
+                abandonRequest.replaceControl(new SimplePagedResultsControl(0, cookie, false));
+                pinnedConnection.search(abandonRequest);
+            } catch (LDAPException ignored) {
+                // 釋放失敗不影響關閉
+            }
+        }
+        hasMore = false;
+        releaseConnection(false);
+    }
+
+    private void releaseConnection(boolean defunct) {
+        if (pinnedConnection == null) {
+            return;
+        }
+        if (readReplica) {
+            if (defunct) {
+                connection.releaseDefunctReadConnection(pinnedConnection);
+            } else {
+                connection.releaseReadConnection(pinnedConnection);
+            }
+        } else if (defunct) {
+            connection.releaseDefunctConnection(pinnedConnection);
+        } else {
+            connection.releaseConnection(pinnedConnection);
+        }
+        pinnedConnection = null;
+    }
+}
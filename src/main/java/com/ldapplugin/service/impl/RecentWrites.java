@@ -0,0 +1,86 @@
+package com.ldapplugin.service.impl;
+
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 讀寫分離時記錄最近寫入的 DN，供讀取判斷是否可能讀到尚未複寫到讀取伺服器的資料
+ * 每筆紀錄在指定時間後失效；涵蓋最近寫入條目的讀取應改由主要伺服器處理
+ */
+final class RecentWrites {
+
+    // 大量寫入時只保留最新的紀錄，避免判斷成本隨寫入次數成長
+    private static final int MAX_RECORDS = 1000;
+
+    private final LinkedHashMap<String, RecentWrite> writes = new LinkedHashMap<>();
+
+    /**
+     * @param subtree 寫入影響整個子樹（例如刪除子樹、批次修改）
+     */
+    synchronized void record(String dn, boolean subtree, long windowMillis) {
+        String key = normalize(dn);
+        RecentWrite previous = writes.remove(key);
+        writes.put(key, new RecentWrite(System.currentTimeMillis() + windowMillis,
+                subtree || (previous != null && previous.subtree)));
+        if (writes.size() > MAX_RECORDS) {
+            // 超過上限時視為整個目錄都剛寫入過，直到紀錄失效
+            writes.clear();
+            writes.put("", new RecentWrite(System.currentTimeMillis() + windowMillis, true));
+        }
+    }
+
+    /**
+     * 以 baseDn 為基底的讀取是否可能包含最近寫入的條目：寫入的條目在 baseDn 之下，或寫入的子樹涵蓋 baseDn
+     */
+    synchronized boolean affects(String baseDn) {
+        if (writes.isEmpty()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        String base = normalize(baseDn);
+        boolean affected = false;
+        Iterator<Map.Entry<String, RecentWrite>> iterator = writes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, RecentWrite> write = iterator.next();
+            if (write.getValue().expiresAt <= now) {
+                iterator.remove();
+                continue;
+            }
+            if (isDescendantOrSelf(write.getKey(), base)
+                    || (write.getValue().subtree && isDescendantOrSelf(base, write.getKey()))) {
+                affected = true;
+            }
+        }
+        return affected;
+    }
+
+    private static String normalize(String dn) {
+        try {
+            return DN.normalize(dn);
+        } catch (LDAPException e) {
+            return dn.toLowerCase();
+        }
+    }
+
+    private static boolean isDescendantOrSelf(String dn, String baseDn) {
+        try {
+            return DN.isDescendantOf(dn, baseDn, true);
+        } catch (LDAPException e) {
+            return dn.equals(baseDn);
+        }
+    }
+
+    private static final class RecentWrite {
+        private final long expiresAt;
+        private final boolean subtree;
+
+        RecentWrite(long expiresAt, boolean subtree) {
+            this.expiresAt = expiresAt;
+            this.subtree = subtree;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ldapplugin.service.impl;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 每個連線的結構描述快取
+ * 結構描述只在第一次使用時完整讀取；之後每隔一段時間讀取子結構描述條目的 modifyTimestamp，時間戳變更時才重新載入
+ */
+final class SchemaCache {
+
+    private static final String[] TIMESTAMP_ATTRIBUTES = {"modifyTimestamp", "createTimestamp"};
+
+    private final ConcurrentMap<String, CachedSchema> schemas = new ConcurrentHashMap<>();
+    private final long checkIntervalMillis;
+
+    SchemaCache(long checkIntervalMillis) {
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * @return 伺服器未提供結構描述時為 null
+     */
+    Schema get(String connectionName, LDAPConnection ldap) throws LDAPException {
+        CachedSchema cached = schemas.get(connectionName);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.checkedAt < checkIntervalMillis) {
+            return cached.schema;
+        }
+
+        if (cached != null && cached.schema != null) {
+            String timestamp = readTimestamp(ldap, cached.schema);
+            if (timestamp != null && Objects.equals(timestamp, cached.timestamp)) {
+                schemas.put(connectionName, new CachedSchema(cached.schema, timestamp, now));
+                return cached.schema;
+            }
+        }
+
+        // 同時有多個執行緒重新載入時各自讀取，以最後一次的結果為準
+        Schema schema = ldap.getSchema();
+        String timestamp = schema == null ? null : readTimestamp(ldap, schema);
+        schemas.put(connectionName, new CachedSchema(schema, timestamp, now));
+        return schema;
+    }
+
+    void invalidate(String connectionName) {
+        schemas.remove(connectionName);
+    }
+
+    /**
+     * 讀取子結構描述條目的修改時間；伺服器不提供時為 null，每次檢查都會重新載入
+     */
+    private static String readTimestamp(LDAPConnection ldap, Schema schema) throws LDAPException {
+        Entry schemaEntry = schema.getSchemaEntry();
+        if (schemaEntry == null || schemaEntry.getDN().isEmpty()) {
+            return null;
+        }
+        Entry entry = ldap.getEntry(schemaEntry.getDN(), TIMESTAMP_ATTRIBUTES);
+        if (entry == null) {
+            return null;
+        }
+        String timestamp = entry.getAttributeValue("modifyTimestamp");
+        return timestamp != null ? timestamp : entry.getAttributeValue("createTimestamp");
+    }
+
+    private static final class CachedSchema {
+        private final Schema schema;
+        private final String timestamp;
+        private final long checkedAt;
+
+        private CachedSchema(Schema schema, String timestamp, long checkedAt) {
+            this.schema = schema;
+            this.timestamp = timestamp;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
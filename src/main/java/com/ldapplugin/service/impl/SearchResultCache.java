@@ -0,0 +1,154 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapCacheStatistics;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultReference;
+import com.unboundid.ldap.sdk.SearchScope;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 搜尋結果快取
+ * 以（連線, baseDn, scope, filter, 屬性）為鍵；寫入操作依搜尋範圍失效可能受影響的結果
+ */
+final class SearchResultCache {
+
+    private final LruTtlCache<Key, SearchResult> cache;
+    private final int maxEntriesPerResult;
+
+    SearchResultCache(int maxSize, long ttlMillis, int maxEntriesPerResult) {
+        this.cache = new LruTtlCache<>(maxSize, ttlMillis);
+        this.maxEntriesPerResult = maxEntriesPerResult;
+    }
+
+    SearchResult get(String connectionName, SearchRequest request) {
+        Key key = Key.of(connectionName, request);
+        return key == null ? null : cache.get(key);
+    }
+
+    /**
+     * 快取搜尋結果；帶有控制項或條目數超過上限的結果不快取
+     */
+    void put(String connectionName, SearchRequest request, SearchResult result) {
+        if (request.hasControl() || result.getEntryCount() > maxEntriesPerResult) {
+            return;
+        }
+        Key key = Key.of(connectionName, request);
+        if (key != null) {
+            cache.put(key, result);
+        }
+    }
+
+    /**
+     * 失效所有搜尋範圍涵蓋指定 DN 的結果
+     *
+     * @param subtree 為 true 時一併失效以該 DN 以下為基礎的搜尋（刪除或更名時）
+     */
+    void invalidate(String connectionName, String dn, boolean subtree) {
+        DN changedDn;
+        try {
+            changedDn = new DN(dn);
+        } catch (LDAPException e) {
+            invalidateConnection(connectionName);
+            return;
+        }
+        DN parentDn = changedDn.getParent();
+
+        cache.removeIf(key -> {
+            if (!key.connectionName.equals(connectionName)) {
+                return false;
+            }
+            if (subtree && key.baseDn.isDescendantOf(changedDn, true)) {
+                return true;
+            }
+            return key.covers(changedDn, parentDn);
+        });
+    }
+
+    void invalidateConnection(String connectionName) {
+        cache.removeIf(key -> key.connectionName.equals(connectionName));
+    }
+
+    /**
+     * 把逐頁讀取的條目合併成單一搜尋結果，結果碼與控制項取自最後一頁
+     */
+    static SearchResult aggregate(SearchResult lastPage, List<SearchResultEntry> entries,
+                                  List<SearchResultReference> references) {
+        return new SearchResult(lastPage.getMessageID(), lastPage.getResultCode(),
+                lastPage.getDiagnosticMessage(), lastPage.getMatchedDN(), lastPage.getReferralURLs(),
+                entries, references, entries.size(), references.size(), lastPage.getResponseControls());
+    }
+
+    LdapCacheStatistics getStatistics() {
+        return new LdapCacheStatistics(cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.size());
+    }
+
+    private static final class Key {
+        private final String connectionName;
+        private final DN baseDn;
+        private final SearchScope scope;
+        private final String filter;
+        private final String attributes;
+
+        private Key(String connectionName, DN baseDn, SearchScope scope, String filter, String attributes) {
+            this.connectionName = connectionName;
+            this.baseDn = baseDn;
+            this.scope = scope;
+            this.filter = filter;
+            this.attributes = attributes;
+        }
+
+        static Key of(String connectionName, SearchRequest request) {
+            try {
+                String[] attributes = request.getAttributes().clone();
+                for (int i = 0; i < attributes.length; i++) {
+                    attributes[i] = attributes[i].toLowerCase();
+                }
+                Arrays.sort(attributes);
+                return new Key(connectionName, new DN(request.getBaseDN()), request.getScope(),
+                        request.getFilter().toNormalizedString(), String.join(",", attributes));
+            } catch (LDAPException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 此搜尋的範圍是否包含指定 DN
+         */
+        boolean covers(DN dn, DN parentDn) {
+            switch (scope.intValue()) {
+                case SearchScope.BASE_INT_VALUE:
+                    return baseDn.equals(dn);
+                case SearchScope.ONE_INT_VALUE:
+                    return baseDn.equals(parentDn != null ? parentDn : DN.NULL_DN);
+                case SearchScope.SUBORDINATE_SUBTREE_INT_VALUE:
+                    return dn.isDescendantOf(baseDn, false);
+                default:
+                    return dn.isDescendantOf(baseDn, true);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return connectionName.equals(that.connectionName) &&
+                    baseDn.equals(that.baseDn) &&
+                    scope.intValue() == that.scope.intValue() &&
+                    filter.equals(that.filter) &&
+                    attributes.equals(that.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(connectionName, baseDn, scope.intValue(), filter, attributes);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapSlowOperation;
+import com.unboundid.ldap.sdk.Control;
+import com.unboundid.ldap.sdk.DisconnectType;
+import com.unboundid.ldap.sdk.LDAPConnectionInfo;
+import com.unboundid.ldap.sdk.LDAPConnectionLogger;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.OperationType;
+import com.unboundid.ldap.sdk.ReadOnlyAddRequest;
+import com.unboundid.ldap.sdk.ReadOnlyCompareRequest;
+import com.unboundid.ldap.sdk.ReadOnlyDeleteRequest;
+import com.unboundid.ldap.sdk.ReadOnlyLDAPRequest;
+import com.unboundid.ldap.sdk.ReadOnlyModifyDNRequest;
+import com.unboundid.ldap.sdk.ReadOnlyModifyRequest;
+import com.unboundid.ldap.sdk.ReadOnlySearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以 SDK 的連線記錄器攔截每個請求與回應，將耗時超過門檻的操作保留在固定大小的環狀緩衝區
+ * 請求的細節只在確定超過門檻且被取樣時才整理；停用時每個回呼只讀取一次門檻即返回
+ */
+final class SlowOperationLog extends LDAPConnectionLogger {
+
+    // 回應遲遲未到（例如連線中斷未通知）時避免等待中的請求無限累積
+    private static final int MAX_PENDING_OPERATIONS = 10_000;
+
+    private final ConcurrentMap<Long, PendingOperation> pending = new ConcurrentHashMap<>();
+    private final LdapSlowOperation[] records;
+    private int nextIndex;
+    private int size;
+    private final AtomicLong slowCount = new AtomicLong();
+    private volatile long thresholdNanos;
+    private volatile int sampleRate = 1;
+
+    SlowOperationLog(int capacity) {
+        this.records = new LdapSlowOperation[Math.max(1, capacity)];
+    }
+
+    /**
+     * 設定門檻，0 表示停用
+     */
+    void setThresholdMillis(long thresholdMillis) {
+        thresholdNanos = Math.max(0L, thresholdMillis) * 1_000_000L;
+        if (thresholdNanos == 0) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * 超過門檻的操作每 sampleRate 筆記錄 1 筆
+     */
+    void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    boolean isEnabled() {
+        return thresholdNanos > 0;
+    }
+
+    /**
+     * 取得保留的紀錄，最新的在前
+     */
+    synchronized List<LdapSlowOperation> getRecords() {
+        List<LdapSlowOperation> result = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            result.add(records[(nextIndex - i + records.length) % records.length]);
+        }
+        return result;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(records, null);
+        nextIndex = 0;
+        size = 0;
+        slowCount.set(0);
+    }
+
+    private synchronized void append(LdapSlowOperation record) {
+        records[nextIndex] = record;
+        nextIndex = (nextIndex + 1) % records.length;
+        size = Math.min(size + 1, records.length);
+    }
+
+    @Override
+    public void logSearchRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlySearchRequest searchRequest) {
+        start(connectionInfo, messageID, OperationType.SEARCH, searchRequest.getBaseDN(), searchRequest);
+    }
+
+    @Override
+    public void logSearchEntry(LDAPConnectionInfo connectionInfo, int requestMessageID, SearchResultEntry searchEntry) {
+        if (thresholdNanos == 0) {
+            return;
+        }
+        PendingOperation operation = pending.get(key(connectionInfo, requestMessageID));
+        if (operation != null) {
+            // 同一個請求的條目與結果都由同一條讀取執行緒回報
+            if (operation.entryCount++ == 0) {
+                operation.firstEntryNanos = System.nanoTime();
+            }
+        }
+    }
+
+    @Override
+    public void logSearchResult(LDAPConnectionInfo connectionInfo, int requestMessageID, SearchResult searchResult) {
+        finish(connectionInfo, requestMessageID, searchResult);
+    }
+
+    @Override
+    public void logAddRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlyAddRequest addRequest) {
+        start(connectionInfo, messageID, OperationType.ADD, addRequest.getDN(), addRequest);
+    }
+
+    @Override
+    public void logAddResult(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult addResult) {
+        finish(connectionInfo, requestMessageID, addResult);
+    }
+
+    @Override
+    public void logModifyRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlyModifyRequest modifyRequest) {
+        start(connectionInfo, messageID, OperationType.MODIFY, modifyRequest.getDN(), modifyRequest);
+    }
+
+    @Override
+    public void logModifyResult(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult modifyResult) {
+        finish(connectionInfo, requestMessageID, modifyResult);
+    }
+
+    @Override
+    public void logModifyDNRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlyModifyDNRequest modifyDNRequest) {
+        start(connectionInfo, messageID, OperationType.MODIFY_DN, modifyDNRequest.getDN(), modifyDNRequest);
+    }
+
+    @Override
+    public void logModifyDNResult(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult modifyDNResult) {
+        finish(connectionInfo, requestMessageID, modifyDNResult);
+    }
+
+    @Override
+    public void logDeleteRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlyDeleteRequest deleteRequest) {
+        start(connectionInfo, messageID, OperationType.DELETE, deleteRequest.getDN(), deleteRequest);
+    }
+
+    @Override
+    public void logDeleteResult(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult deleteResult) {
+        finish(connectionInfo, requestMessageID, deleteResult);
+    }
+
+    @Override
+    public void logCompareRequest(LDAPConnectionInfo connectionInfo, int messageID, ReadOnlyCompareRequest compareRequest) {
+        start(connectionInfo, messageID, OperationType.COMPARE, compareRequest.getDN(), compareRequest);
+    }
+
+    @Override
+    public void logCompareResult(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult compareResult) {
+        finish(connectionInfo, requestMessageID, compareResult);
+    }
+
+    @Override
+    public void logAbandonRequest(LDAPConnectionInfo connectionInfo, int messageID, int messageIDToAbandon,
+                                  List<Control> requestControls) {
+        if (thresholdNanos == 0) {
+            return;
+        }
+        pending.remove(key(connectionInfo, messageIDToAbandon));
+    }
+
+    @Override
+    public void logDisconnect(LDAPConnectionInfo connectionInfo, String host, int port, DisconnectType disconnectType,
+                              String message, Throwable cause) {
+        if (thresholdNanos == 0 || pending.isEmpty()) {
+            return;
+        }
+        long connectionId = connectionInfo.getConnectionID();
+        pending.values().removeIf(operation -> operation.connectionId == connectionId);
+    }
+
+    private void start(LDAPConnectionInfo connectionInfo, int messageID, OperationType type, String dn,
+                       ReadOnlyLDAPRequest request) {
+        if (thresholdNanos == 0 || pending.size() >= MAX_PENDING_OPERATIONS) {
+            return;
+        }
+        pending.put(key(connectionInfo, messageID),
+                new PendingOperation(connectionInfo.getConnectionID(), type, dn, request, System.nanoTime()));
+    }
+
+    private void finish(LDAPConnectionInfo connectionInfo, int requestMessageID, LDAPResult result) {
+        long threshold = thresholdNanos;
+        if (threshold == 0) {
+            return;
+        }
+        PendingOperation operation = pending.remove(key(connectionInfo, requestMessageID));
+        if (operation == null) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - operation.startNanos;
+        if (durationNanos >= threshold && (slowCount.getAndIncrement() % sampleRate) == 0) {
+            append(operation.toRecord(connectionInfo.getHostPort(), result, durationNanos));
+        }
+    }
+
+    private static long key(LDAPConnectionInfo connectionInfo, int messageID) {
+        return (connectionInfo.getConnectionID() << 32) | (messageID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 已送出、尚未收到回應的請求
+     */
+    private static final class PendingOperation {
+        private final long connectionId;
+        private final OperationType type;
+        private final String dn;
+        private final ReadOnlyLDAPRequest request;
+        private final long startNanos;
+        private volatile long firstEntryNanos;
+        private volatile long entryCount;
+
+        PendingOperation(long connectionId, OperationType type, String dn, ReadOnlyLDAPRequest request, long startNanos) {
+            this.connectionId = connectionId;
+            this.type = type;
+            this.dn = dn;
+            this.request = request;
+            this.startNanos = startNanos;
+        }
+
+        LdapSlowOperation toRecord(String server, LDAPResult result, long durationNanos) {
+            long timestamp = System.currentTimeMillis() - durationNanos / 1_000_000L;
+            List<String> controls = new ArrayList<>();
+            for (Control control : request.getControlList()) {
+                controls.add(control.getControlName());
+            }
+
+            ReadOnlySearchRequest searchRequest = request instanceof ReadOnlySearchRequest
+                    ? (ReadOnlySearchRequest) request : null;
+            long firstEntry = firstEntryNanos;
+            return new LdapSlowOperation(timestamp, server, type, dn,
+                    searchRequest == null ? null : searchRequest.getScope(),
+                    searchRequest == null ? null : searchRequest.getFilter().toString(),
+                    searchRequest == null ? Collections.emptyList() : new ArrayList<>(searchRequest.getAttributeList()),
+                    controls, result.getResultCode(), entryCount,
+                    firstEntry == 0 ? -1L : (firstEntry - startNanos) / 1000L,
+                    durationNanos / 1000L);
+        }
+    }
+}
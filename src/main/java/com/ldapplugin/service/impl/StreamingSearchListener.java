@@ -0,0 +1,61 @@
+package com.ldapplugin.service.impl;
+
+import com.ldapplugin.service.LdapEntryHandler;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultListener;
+import com.unboundid.ldap.sdk.SearchResultReference;
+
+/**
+ * 將搜尋結果逐筆轉交給 {@link LdapEntryHandler} 的監聽器
+ * 處理器要求停止或拋出例外後，本頁剩餘的條目直接略過，由呼叫端結束分頁
+ */
+final class StreamingSearchListener implements SearchResultListener {
+    private static final long serialVersionUID = 1L;
+
+    private final transient LdapEntryHandler handler;
+    private long entryCount;
+    private boolean stopped;
+    private transient RuntimeException failure;
+
+    StreamingSearchListener(LdapEntryHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void searchEntryReturned(SearchResultEntry searchEntry) {
+        if (stopped) {
+            return;
+        }
+        entryCount++;
+        try {
+            if (!handler.handleEntry(searchEntry)) {
+                stopped = true;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            stopped = true;
+        }
+    }
+
+    @Override
+    public void searchReferenceReturned(SearchResultReference searchReference) {
+        // 不追蹤 referral
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 將處理器拋出的例外重新拋回呼叫端
+     */
+    void rethrowIfFailed() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.ldapplugin.service.impl;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapBatchResult;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.DeleteRequest;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.RootDSE;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.controls.SubtreeDeleteRequestControl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 刪除整個子樹
+ * 伺服器支援 Subtree Delete 控制項時以單一請求交由伺服器刪除；
+ * 否則先以分頁搜尋取得子樹內所有 DN 並依深度分組，由最深的一層開始逐層以非同步刪除平行送出，每層完成後才處理上一層
+ */
+final class SubtreeDeleter {
+
+    private static final int PROGRESS_INTERVAL = 200;
+    private static final String SKIPPED = "SKIPPED";
+
+    private final AsyncRequestWindow window;
+    private final ProgressIndicator indicator;
+    private final BatchStatistics statistics = new BatchStatistics();
+    /**
+     * 有子條目刪除失敗的條目（正規化 DN），刪除時直接略過以免產生大量 notAllowedOnNonLeaf 錯誤
+     */
+    private final Set<String> blocked = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, List<DN>> levels;
+    private final long total;
+
+    private SubtreeDeleter(AsyncRequestWindow window, ProgressIndicator indicator, Map<Integer, List<DN>> levels) {
+        this.window = window;
+        this.indicator = indicator;
+        this.levels = levels;
+        long count = 0;
+        for (List<DN> level : levels.values()) {
+            count += level.size();
+        }
+        this.total = count;
+    }
+
+    static LdapBatchResult delete(LdapConnection connection, String baseDn, int maxInFlight,
+                                  ProgressIndicator indicator) throws LDAPException {
+        long startTime = System.currentTimeMillis();
+        if (supportsSubtreeDelete(connection)) {
+            if (indicator != null) {
+                indicator.setText2("由伺服器刪除 " + baseDn + " 子樹");
+            }
+            try {
+                deleteWithControl(connection, baseDn);
+                // 伺服器不回報刪除的條目數，結果標示為整個子樹已由伺服器刪除
+                return new LdapBatchResult(1, 0, System.currentTimeMillis() - startTime, false,
+                        Collections.emptyMap(), Collections.emptyList(), true);
+            } catch (LDAPException e) {
+                if (e.getResultCode() != ResultCode.UNAVAILABLE_CRITICAL_EXTENSION) {
+                    throw e;
+                }
+                // RootDSE 宣告支援但實際拒絕控制項（如權限限制），改由用戶端逐層刪除
+            }
+        }
+
+        Map<Integer, List<DN>> levels = collectLevels(connection, baseDn, indicator);
+        if (levels == null) {
+            return toResult(new BatchStatistics(), startTime, true);
+        }
+        try (AsyncRequestWindow window = new AsyncRequestWindow(connection, maxInFlight)) {
+            SubtreeDeleter deleter = new SubtreeDeleter(window, indicator, levels);
+            boolean canceled = deleter.deleteLevels();
+            return toResult(deleter.statistics, startTime, canceled);
+        }
+    }
+
+    private static boolean supportsSubtreeDelete(LdapConnection connection) throws LDAPException {
+        LDAPConnection ldap = connection.checkoutConnection();
+        try {
+            RootDSE rootDSE = ldap.getRootDSE();
+            connection.releaseConnection(ldap);
+            return rootDSE != null && rootDSE.supportsControl(SubtreeDeleteRequestControl.SUBTREE_DELETE_REQUEST_OID);
+        } catch (LDAPException e) {
+            if (ResultCode.isConnectionUsable(e.getResultCode())) {
+                connection.releaseConnection(ldap);
+            } else {
+                connection.releaseDefunctConnection(ldap);
+            }
+            throw e;
+        }
+    }
+
+    private static void deleteWithControl(LdapConnection connection, String baseDn) throws LDAPException {
+        DeleteRequest request = new DeleteRequest(baseDn);
+        request.addControl(new SubtreeDeleteRequestControl(true));
+        // 大型子樹由伺服器刪除可能需要很長時間，不套用連線的回應逾時
+        request.setResponseTimeoutMillis(0L);
+
+        LDAPConnection ldap = connection.checkoutConnection();
+        boolean defunct = false;
+        try {
+            ldap.delete(request);
+        } catch (LDAPException e) {
+            defunct = !ResultCode.isConnectionUsable(e.getResultCode());
+            throw e;
+        } finally {
+            if (defunct) {
+                connection.releaseDefunctConnection(ldap);
+            } else {
+                connection.releaseConnection(ldap);
+            }
+        }
+    }
+
+    /**
+     * 分頁取得子樹內所有 DN（不取回屬性），依 RDN 數量分組；鍵由深到淺排序
+     * @return 被取消時回傳 null，尚未刪除任何條目
+     */
+    private static Map<Integer, List<DN>> collectLevels(LdapConnection connection, String baseDn,
+                                                        ProgressIndicator indicator) throws LDAPException {
+        Map<Integer, List<DN>> levels = new TreeMap<>(Collections.reverseOrder());
+        SearchRequest request = new SearchRequest(baseDn, SearchScope.SUB, "(objectClass=*)", SearchRequest.NO_ATTRIBUTES);
+        long found = 0;
+        try (PagedSearchCursor cursor = new PagedSearchCursor(connection, request, connection.getPageSize())) {
+            SearchResult page;
+            while ((page = cursor.nextPageResult()) != null) {
+                for (SearchResultEntry entry : page.getSearchEntries()) {
+                    DN dn = entry.getParsedDN();
+                    levels.computeIfAbsent(dn.getRDNs().length, k -> new ArrayList<>()).add(dn);
+                    found++;
+                }
+                if (indicator != null) {
+                    if (indicator.isCanceled()) {
+                        return null;
+                    }
+                    indicator.setText2("已找到 " + found + " 筆條目");
+                }
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * @return 是否被取消
+     */
+    private boolean deleteLevels() {
+        for (List<DN> level : levels.values()) {
+            for (DN dn : level) {
+                if (indicator != null && indicator.isCanceled()) {
+                    window.awaitIdle();
+                    return true;
+                }
+                submit(dn);
+            }
+            // 上一層必須等這一層全部刪除後才能送出
+            window.awaitIdle();
+        }
+        return false;
+    }
+
+    private void submit(DN dn) {
+        if (blocked.contains(dn.toNormalizedString())) {
+            statistics.recordFailure(SKIPPED, dn + ": 子條目刪除失敗，略過");
+            block(dn);
+            reportProgress();
+            return;
+        }
+
+        window.acquire();
+        LDAPConnection ldap;
+        try {
+            ldap = window.nextConnection();
+        } catch (LDAPException e) {
+            statistics.recordFailure(dn.toString(), e);
+            block(dn);
+            window.release();
+            return;
+        }
+
+        AsyncLdapOperations.delete(ldap, new DeleteRequest(dn)).whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                statistics.recordSuccess();
+            } else {
+                statistics.recordFailure(dn.toString(), throwable);
+                block(dn);
+            }
+            reportProgress();
+            window.release();
+        });
+    }
+
+    private void block(DN dn) {
+        DN parent = dn.getParent();
+        if (parent != null) {
+            blocked.add(parent.toNormalizedString());
+        }
+    }
+
+    private void reportProgress() {
+        if (indicator == null) {
+            return;
+        }
+        long processed = statistics.getProcessed();
+        if (processed % PROGRESS_INTERVAL == 0 || processed == total) {
+            indicator.setIndeterminate(false);
+            indicator.setFraction(total == 0 ? 1.0 : (double) processed / total);
+            indicator.setText2("已刪除 " + statistics.getSucceeded() + " / " + total + " 筆，失敗 " + statistics.getFailed() + " 筆");
+        }
+    }
+
+    private static LdapBatchResult toResult(BatchStatistics statistics, long startTime, boolean canceled) {
+        return new LdapBatchResult(statistics.getSucceeded(), statistics.getFailed(),
+                System.currentTimeMillis() - startTime, canceled,
+                statistics.getErrorsByResultCode(), statistics.getErrorSamples());
+    }
+}
@@ -7,6 +7,7 @@ import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.util.xmlb.XmlSerializerUtil;
 import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.model.LdapServerSelection;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -46,10 +47,28 @@ public final class LdapSettingsState implements PersistentStateComponent<LdapSet
             connection.setName(data.name);
             connection.setHost(data.host);
             connection.setPort(data.port);
+            connection.setAdditionalServers(data.additionalServers);
+            connection.setServerSelection(LdapServerSelection.fromName(data.serverSelection));
+            connection.setReadWriteSplit(data.readWriteSplit);
+            connection.setReadYourWritesWindowMillis(data.readYourWritesWindowMillis);
             connection.setBindDn(data.bindDn);
             connection.setPassword(data.password); // 注意：在生產環境中應該加密存儲密碼
             connection.setUseSSL(data.useSSL);
             connection.setBaseDn(data.baseDn);
+            connection.setUsePool(data.usePool);
+            connection.setInitialPoolSize(data.initialPoolSize);
+            connection.setMaxPoolSize(data.maxPoolSize);
+            connection.setMaxConnectionAgeMillis(data.maxConnectionAgeMillis);
+            connection.setHealthCheckIntervalMillis(data.healthCheckIntervalMillis);
+            connection.setPageSize(data.pageSize);
+            connection.setLiveUpdates(data.liveUpdates);
+            connection.setMaxChildrenPerNode(data.maxChildrenPerNode);
+            connection.setPrefetchEnabled(data.prefetchEnabled);
+            connection.setPrefetchChildCount(data.prefetchChildCount);
+            connection.setPrefetchConcurrency(data.prefetchConcurrency);
+            connection.setBulkMaxInFlight(data.bulkMaxInFlight);
+            connection.setSlowOperationThresholdMillis(data.slowOperationThresholdMillis);
+            connection.setSlowOperationSampleRate(data.slowOperationSampleRate);
             result.add(connection);
         }
         return result;
@@ -62,10 +81,28 @@ public final class LdapSettingsState implements PersistentStateComponent<LdapSet
             data.name = connection.getName();
             data.host = connection.getHost();
             data.port = connection.getPort();
+            data.additionalServers = new ArrayList<>(connection.getAdditionalServers());
+            data.serverSelection = connection.getServerSelection().name();
+            data.readWriteSplit = connection.isReadWriteSplit();
+            data.readYourWritesWindowMillis = connection.getReadYourWritesWindowMillis();
             data.bindDn = connection.getBindDn();
             data.password = connection.getPassword(); // 注意：在生產環境中應該加密存儲密碼
             data.useSSL = connection.isUseSSL();
             data.baseDn = connection.getBaseDn();
+            data.usePool = connection.isUsePool();
+            data.initialPoolSize = connection.getInitialPoolSize();
+            data.maxPoolSize = connection.getMaxPoolSize();
+            data.maxConnectionAgeMillis = connection.getMaxConnectionAgeMillis();
+            data.healthCheckIntervalMillis = connection.getHealthCheckIntervalMillis();
+            data.pageSize = connection.getPageSize();
+            data.liveUpdates = connection.isLiveUpdates();
+            data.maxChildrenPerNode = connection.getMaxChildrenPerNode();
+            data.prefetchEnabled = connection.isPrefetchEnabled();
+            data.prefetchChildCount = connection.getPrefetchChildCount();
+            data.prefetchConcurrency = connection.getPrefetchConcurrency();
+            data.bulkMaxInFlight = connection.getBulkMaxInFlight();
+            data.slowOperationThresholdMillis = connection.getSlowOperationThresholdMillis();
+            data.slowOperationSampleRate = connection.getSlowOperationSampleRate();
             this.connections.add(data);
         }
     }
@@ -77,9 +114,27 @@ public final class LdapSettingsState implements PersistentStateComponent<LdapSet
         public String name = "";
         public String host = "";
         public int port = 389;
+        public List<String> additionalServers = new ArrayList<>();
+        public String serverSelection = LdapServerSelection.FAILOVER.name();
+        public boolean readWriteSplit = false;
+        public long readYourWritesWindowMillis = LdapConnection.DEFAULT_READ_YOUR_WRITES_WINDOW_MILLIS;
         public String bindDn = "";
         public String password = "";
         public boolean useSSL = false;
         public String baseDn = "";
+        public boolean usePool = true;
+        public int initialPoolSize = LdapConnection.DEFAULT_INITIAL_POOL_SIZE;
+        public int maxPoolSize = LdapConnection.DEFAULT_MAX_POOL_SIZE;
+        public long maxConnectionAgeMillis = LdapConnection.DEFAULT_MAX_CONNECTION_AGE_MILLIS;
+        public long healthCheckIntervalMillis = LdapConnection.DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS;
+        public int pageSize = LdapConnection.DEFAULT_PAGE_SIZE;
+        public boolean liveUpdates = false;
+        public int maxChildrenPerNode = LdapConnection.DEFAULT_MAX_CHILDREN_PER_NODE;
+        public boolean prefetchEnabled = false;
+        public int prefetchChildCount = LdapConnection.DEFAULT_PREFETCH_CHILD_COUNT;
+        public int prefetchConcurrency = LdapConnection.DEFAULT_PREFETCH_CONCURRENCY;
+        public int bulkMaxInFlight = LdapConnection.DEFAULT_BULK_MAX_IN_FLIGHT;
+        public long slowOperationThresholdMillis = LdapConnection.DEFAULT_SLOW_OPERATION_THRESHOLD_MILLIS;
+        public int slowOperationSampleRate = LdapConnection.DEFAULT_SLOW_OPERATION_SAMPLE_RATE;
     }
 }
@@ -0,0 +1,286 @@
+package com.ldapplugin.ui;
+
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.ldapplugin.service.LdapSchemaSupport;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Base64;
+import com.unboundid.util.StaticUtils;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 條目詳細資訊的檢視
+ * 屬性值保留原始位元組，只有表格實際繪製到的儲存格才解碼成文字；二進位屬性只顯示大小與十六進位預覽，Base64 預覽放在提示中。
+ * 值很多的屬性先顯示前幾個，其餘由使用者點選「顯示更多」時才分批加入
+ */
+final class EntryDetailsView extends JPanel {
+
+    private static final String MESSAGE_CARD = "message";
+    private static final String ENTRY_CARD = "entry";
+    private static final int INITIAL_VALUES_PER_ATTRIBUTE = 20;
+    private static final int VALUES_PER_EXPANSION = 500;
+    private static final int MAX_TEXT_PREVIEW_BYTES = 1000;
+    private static final int HEX_PREVIEW_BYTES = 32;
+    private static final int BASE64_PREVIEW_BYTES = 768;
+
+    private final CardLayout cardLayout = new CardLayout();
+    private final JTextArea messageArea = new JTextArea();
+    private final JLabel dnLabel = new JLabel();
+    private final DetailsTableModel tableModel = new DetailsTableModel();
+    private final JBTable table = new JBTable(tableModel) {
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            int row = rowAtPoint(event.getPoint());
+            return row < 0 ? null : tableModel.getToolTip(convertRowIndexToModel(row));
+        }
+    };
+
+    EntryDetailsView() {
+        setLayout(cardLayout);
+
+        messageArea.setEditable(false);
+        messageArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        add(new JBScrollPane(messageArea), MESSAGE_CARD);
+
+        table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        table.getColumnModel().getColumn(0).setPreferredWidth(150);
+        table.getColumnModel().getColumn(1).setPreferredWidth(450);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                if (row >= 0 && SwingUtilities.isLeftMouseButton(e)) {
+                    tableModel.expand(table.convertRowIndexToModel(row));
+                }
+            }
+        });
+        table.setComponentPopupMenu(createPopupMenu());
+
+        JPanel entryPanel = new JPanel(new BorderLayout());
+        dnLabel.setBorder(BorderFactory.createEmptyBorder(2, 4, 4, 4));
+        dnLabel.setFont(dnLabel.getFont().deriveFont(Font.BOLD));
+        entryPanel.add(dnLabel, BorderLayout.NORTH);
+        entryPanel.add(new JBScrollPane(table), BorderLayout.CENTER);
+        add(entryPanel, ENTRY_CARD);
+
+        showMessage("");
+    }
+
+    void showMessage(String message) {
+        tableModel.clear();
+        messageArea.setText(message);
+        messageArea.setCaretPosition(0);
+        cardLayout.show(this, MESSAGE_CARD);
+    }
+
+    void showEntry(Entry entry, Schema schema) {
+        dnLabel.setText("DN: " + entry.getDN());
+        tableModel.setEntry(entry, schema);
+        table.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+        cardLayout.show(this, ENTRY_CARD);
+    }
+
+    private JPopupMenu createPopupMenu() {
+        JPopupMenu menu = new JPopupMenu();
+        JMenuItem copyItem = new JMenuItem("複製值");
+        copyItem.addActionListener(e -> {
+            int row = table.getSelectedRow();
+            if (row >= 0) {
+                String value = tableModel.getFullValue(table.convertRowIndexToModel(row));
+                if (value != null) {
+                    CopyPasteManager.getInstance().setContents(new StringSelection(value));
+                }
+            }
+        });
+        menu.add(copyItem);
+        return menu;
+    }
+
+    /**
+     * 屬性的原始值與顯示狀態
+     */
+    private static final class AttributeValues {
+        private final String name;
+        private final byte[][] values;
+        private final boolean binary;
+        private int shown;
+
+        private AttributeValues(String name, byte[][] values, boolean binary) {
+            this.name = name;
+            this.values = values;
+            this.binary = binary;
+        }
+    }
+
+    /**
+     * 表格中的一列：某個屬性的第 valueIndex 個值，或 valueIndex 為 -1 時的「顯示更多」列
+     */
+    private static final class Row {
+        private final AttributeValues attribute;
+        private final int valueIndex;
+
+        private Row(AttributeValues attribute, int valueIndex) {
+            this.attribute = attribute;
+            this.valueIndex = valueIndex;
+        }
+
+        private boolean isMoreRow() {
+            return valueIndex < 0;
+        }
+    }
+
+    private static final class DetailsTableModel extends AbstractTableModel {
+        private final String[] columnNames = {"屬性", "值"};
+        private final List<Row> rows = new ArrayList<>();
+
+        void clear() {
+            rows.clear();
+            fireTableDataChanged();
+        }
+
+        void setEntry(Entry entry, Schema schema) {
+            rows.clear();
+            for (Attribute attribute : entry.getAttributes()) {
+                AttributeValues values = new AttributeValues(attribute.getName(), attribute.getValueByteArrays(),
+                        LdapSchemaSupport.isBinary(schema, attribute));
+                appendValues(rows, values, INITIAL_VALUES_PER_ATTRIBUTE);
+            }
+            fireTableDataChanged();
+        }
+
+        /**
+         * 加入屬性接下來的 count 個值，還有剩餘時在最後加上「顯示更多」列
+         */
+        private static void appendValues(List<Row> target, AttributeValues attribute, int count) {
+            int end = Math.min(attribute.values.length, attribute.shown + count);
+            for (int i = attribute.shown; i < end; i++) {
+                target.add(new Row(attribute, i));
+            }
+            attribute.shown = end;
+            if (end < attribute.values.length) {
+                target.add(new Row(attribute, -1));
+            }
+        }
+
+        /**
+         * 點選「顯示更多」列時，以下一批值取代該列
+         */
+        void expand(int rowIndex) {
+            Row row = rows.get(rowIndex);
+            if (!row.isMoreRow()) {
+                return;
+            }
+            List<Row> added = new ArrayList<>();
+            appendValues(added, row.attribute, VALUES_PER_EXPANSION);
+            rows.remove(rowIndex);
+            rows.addAll(rowIndex, added);
+            fireTableRowsDeleted(rowIndex, rowIndex);
+            fireTableRowsInserted(rowIndex, rowIndex + added.size() - 1);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Row row = rows.get(rowIndex);
+            AttributeValues attribute = row.attribute;
+            if (columnIndex == 0) {
+                if (row.valueIndex != 0) {
+                    return "";
+                }
+                return attribute.values.length > 1
+                        ? attribute.name + " (" + attribute.values.length + ")"
+                        : attribute.name;
+            }
+            if (row.isMoreRow()) {
+                int remaining = attribute.values.length - attribute.shown;
+                return "▸ 顯示更多（還有 " + remaining + " 個值）";
+            }
+            byte[] value = attribute.values[row.valueIndex];
+            return attribute.binary ? binaryPreview(value) : textPreview(value);
+        }
+
+        String getToolTip(int rowIndex) {
+            Row row = rows.get(rowIndex);
+            if (row.isMoreRow() || !row.attribute.binary) {
+                return null;
+            }
+            byte[] value = row.attribute.values[row.valueIndex];
+            int length = Math.min(value.length, BASE64_PREVIEW_BYTES);
+            String base64 = Base64.encode(Arrays.copyOf(value, length));
+            return "<html>Base64：<br>" + String.join("<br>", splitLines(base64, 64))
+                    + (length < value.length ? "<br>…" : "") + "</html>";
+        }
+
+        /**
+         * 完整的值；二進位值以 Base64 表示
+         */
+        String getFullValue(int rowIndex) {
+            Row row = rows.get(rowIndex);
+            if (row.isMoreRow()) {
+                return null;
+            }
+            byte[] value = row.attribute.values[row.valueIndex];
+            return row.attribute.binary ? Base64.encode(value) : StaticUtils.toUTF8String(value);
+        }
+
+        private static String textPreview(byte[] value) {
+            if (value.length <= MAX_TEXT_PREVIEW_BYTES) {
+                return StaticUtils.toUTF8String(value);
+            }
+            // 只解碼預覽需要的部分；截斷處若落在多位元組字元中間，最後一個字元會顯示為替代字元
+            return StaticUtils.toUTF8String(value, 0, MAX_TEXT_PREVIEW_BYTES)
+                    + "…（共 " + value.length + " 位元組）";
+        }
+
+        private static String binaryPreview(byte[] value) {
+            StringBuilder preview = new StringBuilder();
+            preview.append('[').append(value.length).append(" 位元組] ");
+            int length = Math.min(value.length, HEX_PREVIEW_BYTES);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    preview.append(' ');
+                }
+                StaticUtils.toHex(value[i], preview);
+            }
+            if (length < value.length) {
+                preview.append(" …");
+            }
+            return preview.toString();
+        }
+
+        private static List<String> splitLines(String text, int width) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < text.length(); i += width) {
+                lines.add(text.substring(i, Math.min(text.length(), i + width)));
+            }
+            return lines;
+        }
+    }
+}
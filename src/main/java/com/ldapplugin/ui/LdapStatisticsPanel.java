@@ -0,0 +1,276 @@
+package com.ldapplugin.ui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapConnectionService;
+import com.ldapplugin.service.LdapConnectionStatistics;
+import com.ldapplugin.service.LdapLatencyStatistics;
+import com.ldapplugin.service.LdapOperationStatistics;
+import com.ldapplugin.service.LdapSlowOperation;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LDAP 統計分頁：顯示所選連線各類操作的延遲分佈、資料量、錯誤與連線池等待時間，以及慢速操作紀錄
+ * 分頁可見時每隔數秒自動更新
+ */
+public class LdapStatisticsPanel extends JPanel implements Disposable {
+
+    private static final int REFRESH_INTERVAL_MILLIS = 2000;
+
+    private final Project project;
+    private final LdapConnectionService connectionService;
+    private final DefaultComboBoxModel<String> connectionModel = new DefaultComboBoxModel<>();
+    private final StatisticsTableModel tableModel = new StatisticsTableModel();
+    private final JLabel startedAtLabel = new JLabel();
+    private final JLabel errorsLabel = new JLabel();
+    private final SlowOperationsView slowOperationsView;
+    private final Timer refreshTimer;
+
+    public LdapStatisticsPanel(Project project) {
+        this.project = project;
+        this.connectionService = ApplicationManager.getApplication().getService(LdapConnectionService.class);
+        setLayout(new BorderLayout());
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JComboBox<String> connectionComboBox = new ComboBox<>(connectionModel);
+        connectionComboBox.addActionListener(e -> refreshStatistics());
+        JButton resetBtn = new JButton("重設統計");
+        resetBtn.addActionListener(e -> {
+            String connectionName = (String) connectionModel.getSelectedItem();
+            if (connectionName != null) {
+                connectionService.resetStatistics(connectionName);
+                refreshStatistics();
+            }
+        });
+        toolbar.add(new JLabel("連線："));
+        toolbar.add(connectionComboBox);
+        toolbar.add(resetBtn);
+        toolbar.add(startedAtLabel);
+        add(toolbar, BorderLayout.NORTH);
+
+        JPanel statisticsPanel = new JPanel(new BorderLayout());
+        JBTable table = new JBTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(120);
+        statisticsPanel.add(new JBScrollPane(table), BorderLayout.CENTER);
+        errorsLabel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        statisticsPanel.add(errorsLabel, BorderLayout.SOUTH);
+
+        JButton clearSlowBtn = new JButton("清除紀錄");
+        clearSlowBtn.addActionListener(e -> {
+            String connectionName = (String) connectionModel.getSelectedItem();
+            if (connectionName != null) {
+                connectionService.clearSlowOperations(connectionName);
+                refreshStatistics();
+            }
+        });
+        JButton exportSlowBtn = new JButton("匯出紀錄");
+        exportSlowBtn.addActionListener(e -> exportSlowOperations());
+        slowOperationsView = new SlowOperationsView(clearSlowBtn, exportSlowBtn);
+
+        JBSplitter splitter = new JBSplitter(true, 0.45f);
+        splitter.setFirstComponent(statisticsPanel);
+        splitter.setSecondComponent(slowOperationsView);
+        add(splitter, BorderLayout.CENTER);
+
+        refreshTimer = new Timer(REFRESH_INTERVAL_MILLIS, e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+        refreshTimer.start();
+        refresh();
+    }
+
+    private void refresh() {
+        refreshConnectionNames();
+        refreshStatistics();
+    }
+
+    /**
+     * 連線清單在主面板中變更時同步更新，盡量保留目前的選擇
+     */
+    private void refreshConnectionNames() {
+        List<String> names = new ArrayList<>();
+        for (LdapConnection connection : connectionService.getAllConnections()) {
+            names.add(connection.getName());
+        }
+        names.sort(String::compareTo);
+
+        List<String> current = new ArrayList<>();
+        for (int i = 0; i < connectionModel.getSize(); i++) {
+            current.add(connectionModel.getElementAt(i));
+        }
+        if (current.equals(names)) {
+            return;
+        }
+
+        Object selected = connectionModel.getSelectedItem();
+        connectionModel.removeAllElements();
+        for (String name : names) {
+            connectionModel.addElement(name);
+        }
+        if (selected != null && names.contains(selected)) {
+            connectionModel.setSelectedItem(selected);
+        }
+    }
+
+    private void refreshStatistics() {
+        String connectionName = (String) connectionModel.getSelectedItem();
+        if (connectionName == null) {
+            tableModel.setStatistics(null);
+            startedAtLabel.setText("");
+            errorsLabel.setText("");
+            slowOperationsView.showOperations(Collections.emptyList(), 0, 1);
+            return;
+        }
+
+        LdapConnectionStatistics statistics = connectionService.getStatistics(connectionName);
+        tableModel.setStatistics(statistics);
+        startedAtLabel.setText("統計開始於 " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(statistics.getStartedAt())));
+
+        Map<String, Long> errors = statistics.getErrorsByResultCode();
+        if (errors.isEmpty()) {
+            errorsLabel.setText("錯誤結果碼：無");
+        } else {
+            StringBuilder text = new StringBuilder("錯誤結果碼：");
+            for (Map.Entry<String, Long> error : errors.entrySet()) {
+                if (text.length() > "錯誤結果碼：".length()) {
+                    text.append("，");
+                }
+                text.append(error.getKey()).append(" × ").append(error.getValue());
+            }
+            errorsLabel.setText(text.toString());
+        }
+
+        LdapConnection connection = connectionService.getConnection(connectionName);
+        slowOperationsView.showOperations(connectionService.getSlowOperations(connectionName),
+                connection == null ? 0 : connection.getSlowOperationThresholdMillis(),
+                connection == null ? 1 : connection.getSlowOperationSampleRate());
+    }
+
+    /**
+     * 依時間先後將慢速操作紀錄寫成文字檔，每筆一行
+     */
+    private void exportSlowOperations() {
+        String connectionName = (String) connectionModel.getSelectedItem();
+        if (connectionName == null) {
+            return;
+        }
+        List<LdapSlowOperation> operations = new ArrayList<>(connectionService.getSlowOperations(connectionName));
+        if (operations.isEmpty()) {
+            Messages.showInfoMessage("目前沒有慢速操作紀錄", "匯出紀錄");
+            return;
+        }
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("匯出慢速操作紀錄",
+                "匯出連線 " + connectionName + " 的 " + operations.size() + " 筆慢速操作紀錄", "log");
+        VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, "slow-operations.log");
+        if (fileWrapper == null) {
+            return;
+        }
+
+        Collections.reverse(operations);
+        List<String> lines = new ArrayList<>(operations.size());
+        for (LdapSlowOperation operation : operations) {
+            lines.add(operation.toString());
+        }
+        try {
+            Files.write(fileWrapper.getFile().toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Messages.showErrorDialog("匯出紀錄失敗: " + e.getMessage(), "錯誤");
+        }
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+    }
+
+    /**
+     * 每一列是一種操作類型，最後一列是連線池等待時間；時間以毫秒顯示
+     */
+    private static final class StatisticsTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {
+                "操作", "次數", "錯誤", "平均 (ms)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "最大 (ms)", "條目數", "條目位元組"
+        };
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        void setStatistics(LdapConnectionStatistics statistics) {
+            rows.clear();
+            if (statistics != null) {
+                for (LdapOperationStatistics operation : statistics.getOperations()) {
+                    rows.add(row(operation.getType().getDisplayName(), operation.getLatency(),
+                            operation.getErrors(), operation.getEntries(), operation.getEntryBytes()));
+                }
+                rows.add(row("連線池等待", statistics.getPoolWait(), null, null, null));
+            }
+            fireTableDataChanged();
+        }
+
+        private static Object[] row(String name, LdapLatencyStatistics latency, Long errors, Long entries, Long bytes) {
+            boolean empty = latency.getCount() == 0;
+            return new Object[]{
+                    name,
+                    latency.getCount(),
+                    errors == null ? "" : errors,
+                    empty ? "" : String.format("%.2f", latency.getMean() / 1000.0),
+                    empty ? "" : millis(latency.getP50()),
+                    empty ? "" : millis(latency.getP95()),
+                    empty ? "" : millis(latency.getP99()),
+                    empty ? "" : millis(latency.getMax()),
+                    entries == null ? "" : entries,
+                    bytes == null ? "" : bytes
+            };
+        }
+
+        private static String millis(long micros) {
+            return String.format("%.2f", micros / 1000.0);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            return rows.get(rowIndex)[columnIndex];
+        }
+    }
+}
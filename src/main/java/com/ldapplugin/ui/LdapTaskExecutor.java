@@ -0,0 +1,133 @@
+package com.ldapplugin.ui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * LDAP 背景工作執行器
+ * 在背景執行緒執行 LDAP I/O，結果再回到 EDT 套用；呼叫 {@link #cancelAll()} 後，尚未套用的結果一律捨棄，
+ * 並改為呼叫工作的取消回呼。回呼只在送出工作時的模態狀態下執行，不會疊在之後開啟的對話框上
+ */
+public final class LdapTaskExecutor implements Disposable {
+
+    private static final int MAX_THREADS = 4;
+
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("LDAP Manager", MAX_THREADS);
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Future<?>, Runnable> pendingTasks = new ConcurrentHashMap<>();
+    private volatile boolean disposed;
+
+    /**
+     * 在背景執行 LDAP 工作，完成後於 EDT 呼叫 onSuccess 或 onError
+     */
+    public <T> Future<?> submit(LdapTask<T> task, Consumer<T> onSuccess, Consumer<LDAPException> onError) {
+        return submit(task, onSuccess, onError, null);
+    }
+
+    /**
+     * 在背景執行 LDAP 工作，完成後於 EDT 呼叫 onSuccess 或 onError；
+     * 工作的結果因 {@link #cancelAll()} 被捨棄時改於 EDT 呼叫 onCancel（可為 null），三者只會呼叫其中一個
+     * 須在 EDT 呼叫
+     */
+    public <T> Future<?> submit(LdapTask<T> task, Consumer<T> onSuccess, Consumer<LDAPException> onError,
+                                Runnable onCancel) {
+        long submittedGeneration = generation.get();
+        ModalityState modalityState = ModalityState.defaultModalityState();
+        AtomicBoolean settled = new AtomicBoolean();
+        Runnable cancelCallback = () -> {
+            if (onCancel != null && settled.compareAndSet(false, true)) {
+                onCancel.run();
+            }
+        };
+        FutureTask<Void> futureTask = new FutureTask<>(() -> {
+            Runnable callback;
+            try {
+                T result = task.run();
+                callback = () -> onSuccess.accept(result);
+            } catch (LDAPException e) {
+                callback = () -> onError.accept(e);
+            } catch (RuntimeException e) {
+                // 未預期的例外也要回報，否則呼叫端的載入狀態永遠不會結束
+                LDAPException wrapped = new LDAPException(ResultCode.LOCAL_ERROR, String.valueOf(e), e);
+                callback = () -> onError.accept(wrapped);
+            }
+            post(submittedGeneration, modalityState, settled, callback, cancelCallback);
+            return null;
+        });
+
+        pendingTasks.put(futureTask, cancelCallback);
+        executor.execute(() -> {
+            try {
+                futureTask.run();
+            } finally {
+                pendingTasks.remove(futureTask);
+            }
+        });
+        return futureTask;
+    }
+
+    /**
+     * 取消所有尚未開始的工作，並捨棄執行中工作的結果（例如切換連線時）；須在 EDT 呼叫
+     */
+    public void cancelAll() {
+        generation.incrementAndGet();
+        List<Runnable> cancelCallbacks = new ArrayList<>();
+        for (Map.Entry<Future<?>, Runnable> pendingTask : pendingTasks.entrySet()) {
+            pendingTask.getKey().cancel(false);
+            cancelCallbacks.add(pendingTask.getValue());
+        }
+        pendingTasks.clear();
+        if (!disposed) {
+            for (Runnable cancelCallback : cancelCallbacks) {
+                cancelCallback.run();
+            }
+        }
+    }
+
+    private void post(long submittedGeneration, ModalityState modalityState, AtomicBoolean settled,
+                      Runnable callback, Runnable cancelCallback) {
+        if (disposed) {
+            return;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (disposed) {
+                return;
+            }
+            // 結果送達前已呼叫 cancelAll 時，改以取消回呼結束
+            if (generation.get() != submittedGeneration) {
+                cancelCallback.run();
+            } else if (settled.compareAndSet(false, true)) {
+                callback.run();
+            }
+        }, modalityState);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        cancelAll();
+    }
+
+    /**
+     * 在背景執行的 LDAP 工作
+     */
+    @FunctionalInterface
+    public interface LdapTask<T> {
+        T run() throws LDAPException;
+    }
+}
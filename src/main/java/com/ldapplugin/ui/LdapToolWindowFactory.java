@@ -17,6 +17,12 @@ public class LdapToolWindowFactory implements ToolWindowFactory {
         LdapToolWindowPanel toolWindowPanel = new LdapToolWindowPanel(project);
         ContentFactory contentFactory = ContentFactory.getInstance();
         Content content = contentFactory.createContent(toolWindowPanel, "", false);
+        content.setDisposer(toolWindowPanel);
         toolWindow.getContentManager().addContent(content);
+        
+        LdapStatisticsPanel statisticsPanel = new LdapStatisticsPanel(project);
+        Content statisticsContent = contentFactory.createContent(statisticsPanel, "LDAP Statistics", false);
+        statisticsContent.setDisposer(statisticsPanel);
+        toolWindow.getContentManager().addContent(statisticsContent);
     }
 }
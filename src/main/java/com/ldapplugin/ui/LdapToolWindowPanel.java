@@ -1,20 +1,40 @@
 package com.ldapplugin.ui;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
 import com.intellij.ui.JBSplitter;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.treeStructure.Tree;
 import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.service.LdapBatchResult;
+import com.ldapplugin.service.LdapChangeListener;
+import com.ldapplugin.service.LdapChangeSubscription;
 import com.ldapplugin.service.LdapConnectionService;
+import com.ldapplugin.service.LdapSearchCursor;
+import com.ldapplugin.service.LdifImportResult;
+import com.ldapplugin.ui.dialog.BatchModifyDialog;
 import com.ldapplugin.ui.dialog.ConnectionConfigDialog;
 import com.ldapplugin.ui.dialog.EntryEditDialog;
 import com.ldapplugin.ui.tree.LdapTreeModel;
 import com.ldapplugin.ui.tree.LdapTreeNode;
 import com.unboundid.ldap.sdk.Entry;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.schema.Schema;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.event.TreeExpansionEvent;
@@ -25,23 +45,42 @@ import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * LDAP 工具視窗主面板
  */
-public class LdapToolWindowPanel extends JPanel {
+public class LdapToolWindowPanel extends JPanel implements Disposable {
+    
+    // 同時保留的子節點游標數；每個未讀完的游標都占用一條連線
+    private static final int MAX_OPEN_CHILD_CURSORS = 3;
     
     private final Project project;
     private final LdapConnectionService connectionService;
+    private final LdapTaskExecutor taskExecutor = new LdapTaskExecutor();
+    private final TreePrefetcher prefetcher;
     private Tree ldapTree;
     private LdapTreeModel treeModel;
-    private JTextArea detailsArea;
+    private EntryDetailsView detailsView;
+    private LdapTreeNode detailsNode;
     private JComboBox<LdapConnection> connectionComboBox;
+    private TreeChangeListener changeListener;
+    private String treeConnectionName;
+    // 尚有後續頁面的子節點游標，依最近使用排序，只在 EDT 存取
+    private final Map<LdapTreeNode, LdapSearchCursor> childCursors = new LinkedHashMap<>(16, 0.75f, true);
     
     public LdapToolWindowPanel(Project project) {
         this.project = project;
         this.connectionService = ApplicationManager.getApplication().getService(LdapConnectionService.class);
+        this.prefetcher = new TreePrefetcher(connectionService);
         initializeUI();
         refreshConnectionList();
     }
@@ -78,11 +117,13 @@ public class LdapToolWindowPanel extends JPanel {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
                 if (value instanceof LdapConnection) {
                     LdapConnection conn = (LdapConnection) value;
+                    int additionalServers = conn.getAdditionalServers().size();
+                    String hosts = additionalServers == 0 ? conn.getHost() : conn.getHost() + " +" + additionalServers;
                     // 顯示連線狀態文字
                     if (conn.isConnected()) {
-                        setText(conn.getName() + " (" + conn.getHost() + ") [已連線]");
+                        setText(conn.getName() + " (" + hosts + ") [已連線]");
                     } else {
-                        setText(conn.getName() + " (" + conn.getHost() + ") [未連線]");
+                        setText(conn.getName() + " (" + hosts + ") [未連線]");
                     }
                 }
                 return this;
@@ -98,6 +139,10 @@ public class LdapToolWindowPanel extends JPanel {
         JButton connectBtn = new JButton("連線");
         JButton disconnectBtn = new JButton("斷開");
         JButton refreshBtn = new JButton("重新整理");
+        JButton exportBtn = new JButton("匯出 LDIF");
+        JButton importBtn = new JButton("匯入 LDIF");
+        JButton batchModifyBtn = new JButton("批次修改");
+        JButton deleteSubtreeBtn = new JButton("刪除子樹");
         
         newConnectionBtn.addActionListener(e -> showConnectionDialog(null));
         editConnectionBtn.addActionListener(e -> editSelectedConnection());
@@ -105,6 +150,10 @@ public class LdapToolWindowPanel extends JPanel {
         connectBtn.addActionListener(e -> connectToSelectedLdap());
         disconnectBtn.addActionListener(e -> disconnectFromSelectedLdap());
         refreshBtn.addActionListener(e -> refreshTree());
+        exportBtn.addActionListener(e -> exportSelectedSubtree());
+        importBtn.addActionListener(e -> importLdifFile());
+        batchModifyBtn.addActionListener(e -> batchModifySelected());
+        deleteSubtreeBtn.addActionListener(e -> deleteSelectedSubtree());
         
         panel.add(new JLabel("連線:"));
         panel.add(connectionComboBox);
@@ -114,6 +163,10 @@ public class LdapToolWindowPanel extends JPanel {
         panel.add(connectBtn);
         panel.add(disconnectBtn);
         panel.add(refreshBtn);
+        panel.add(exportBtn);
+        panel.add(importBtn);
+        panel.add(batchModifyBtn);
+        panel.add(deleteSubtreeBtn);
         
         return panel;
     }
@@ -137,7 +190,12 @@ public class LdapToolWindowPanel extends JPanel {
 
             @Override
             public void treeWillCollapse(TreeExpansionEvent event) throws ExpandVetoException {
-                // 不需處理
+                // 收合後釋放子樹中尚未讀完的游標，下次載入後續時再重新查詢
+                Object last = event.getPath().getLastPathComponent();
+                if (last instanceof LdapTreeNode) {
+                    closeChildCursors((LdapTreeNode) last);
+                    prefetcher.cancel((LdapTreeNode) last);
+                }
             }
         });
         
@@ -148,10 +206,12 @@ public class LdapToolWindowPanel extends JPanel {
                 if (path != null) {
                     LdapTreeNode node = (LdapTreeNode) path.getLastPathComponent();
                     
-                    if (e.getClickCount() == 1) {
+                    if (node.isLoadMoreNode()) {
+                        loadMoreChildren((LdapTreeNode) node.getParent());
+                    } else if (e.getClickCount() == 1) {
                         // 單擊：顯示詳細資訊
                         showEntryDetails(node);
-                    } else if (e.getClickCount() == 2 && node.getEntry() != null) {
+                    } else if (e.getClickCount() == 2 && node.isEntryNode()) {
                         // 雙擊：打開編輯對話框
                         showEditDialog(node);
                     }
@@ -160,6 +220,8 @@ public class LdapToolWindowPanel extends JPanel {
         });
         
         JBScrollPane scrollPane = new JBScrollPane(ldapTree);
+        // 捲動到「載入後續」節點時自動載入下一頁
+        scrollPane.getViewport().addChangeListener(e -> loadMoreIfVisible());
         panel.add(scrollPane, BorderLayout.CENTER);
         
         return panel;
@@ -169,12 +231,8 @@ public class LdapToolWindowPanel extends JPanel {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createTitledBorder("詳細資訊"));
         
-        detailsArea = new JTextArea();
-        detailsArea.setEditable(false);
-        detailsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        
-        JBScrollPane scrollPane = new JBScrollPane(detailsArea);
-        panel.add(scrollPane, BorderLayout.CENTER);
+        detailsView = new EntryDetailsView();
+        panel.add(detailsView, BorderLayout.CENTER);
         
         return panel;
     }
@@ -188,12 +246,14 @@ public class LdapToolWindowPanel extends JPanel {
     }
     
     private void onConnectionSelected() {
+        // 切換連線時捨棄前一個連線尚未完成的請求
+        taskExecutor.cancelAll();
+        stopLiveUpdates();
         LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
         if (selected != null && selected.isConnected()) {
             refreshTree();
         } else {
-            treeModel.setRoot(new LdapTreeNode("未連線", null));
-            detailsArea.setText("");
+            resetTree();
         }
     }
     
@@ -236,11 +296,12 @@ public class LdapToolWindowPanel extends JPanel {
         );
         
         if (result == Messages.YES) {
+            taskExecutor.cancelAll();
+            stopLiveUpdates();
             connectionService.removeConnection(selected.getName());
             refreshConnectionList();
             // 清空樹狀視圖和詳細資訊
-            treeModel.setRoot(new LdapTreeNode("未連線", null));
-            detailsArea.setText("");
+            resetTree();
             Messages.showInfoMessage("連線已刪除", "資訊");
         }
     }
@@ -252,68 +313,123 @@ public class LdapToolWindowPanel extends JPanel {
             return;
         }
         
-        try {
-            if (connectionService.connect(selected.getName())) {
-                Messages.showInfoMessage("連線成功", "資訊");
-                refreshTree();
-                connectionComboBox.repaint(); // 更新圖示
-            } else {
-                Messages.showErrorDialog("連線失敗", "錯誤");
-            }
-        } catch (LDAPException e) {
-            Messages.showErrorDialog("連線錯誤: " + e.getMessage(), "錯誤");
-        }
+        String connectionName = selected.getName();
+        taskExecutor.submit(
+            () -> connectionService.connect(connectionName),
+            connected -> {
+                if (connected) {
+                    Messages.showInfoMessage("連線成功", "資訊");
+                    refreshTree();
+                    connectionComboBox.repaint(); // 更新圖示
+                } else {
+                    Messages.showErrorDialog("連線失敗", "錯誤");
+                }
+            },
+            e -> Messages.showErrorDialog("連線錯誤: " + e.getMessage(), "錯誤")
+        );
     }
     
     private void disconnectFromSelectedLdap() {
         LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
         if (selected != null) {
+            taskExecutor.cancelAll();
+            stopLiveUpdates();
             connectionService.disconnect(selected.getName());
             Messages.showInfoMessage("已斷開連線", "資訊");
-            treeModel.setRoot(new LdapTreeNode("未連線", null));
-            detailsArea.setText("");
+            resetTree();
             connectionComboBox.repaint(); // 更新圖示
         }
     }
     
+    private void resetTree() {
+        closeChildCursors(null);
+        prefetcher.cancelAll();
+        treeConnectionName = null;
+        treeModel.setRoot(new LdapTreeNode("未連線", null));
+        detailsView.showMessage("");
+    }
+    
     private void refreshTree() {
         LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
         if (selected == null || !selected.isConnected()) {
             return;
         }
         
-        try {
-            // 從基礎 DN 開始載入樹狀結構
-            String baseDn = selected.getBaseDn();
-            if (baseDn == null || baseDn.trim().isEmpty()) {
-                baseDn = ""; // 根目錄
-            }
-            
-            List<Entry> children = connectionService.getChildren(selected.getName(), baseDn);
-            LdapTreeNode rootNode = new LdapTreeNode(baseDn.isEmpty() ? "根目錄" : baseDn, null);
-            
-            for (Entry entry : children) {
-                LdapTreeNode childNode = new LdapTreeNode(entry.getDN(), entry);
-                // 只有非用戶節點才加入 placeholder 讓節點可展開
-                if (!isUserNode(entry)) {
-                    childNode.add(new LdapTreeNode("...", null));
+        // 從基礎 DN 開始載入樹狀結構
+        String baseDn = selected.getBaseDn() == null || selected.getBaseDn().trim().isEmpty()
+                ? "" // 根目錄
+                : selected.getBaseDn();
+        String connectionName = selected.getName();
+        stopLiveUpdates();
+        
+        // 同一連線重新整理時沿用現有節點，只套用差異以保留展開與選取狀態
+        LdapTreeNode currentRoot = (LdapTreeNode) treeModel.getRoot();
+        boolean incremental = connectionName.equals(treeConnectionName) && baseDn.equals(currentRoot.getDn());
+        prefetcher.cancelAll();
+        if (!incremental) {
+            closeChildCursors(null);
+            treeConnectionName = null;
+            LdapTreeNode loadingRoot = LdapTreeNode.createRootNode(baseDn);
+            loadingRoot.add(LdapTreeNode.createLoadingNode());
+            treeModel.setRoot(loadingRoot);
+            ldapTree.expandRow(0);
+        }
+        LdapTreeNode rootNode = (LdapTreeNode) treeModel.getRoot();
+        
+        loadChildPages(selected, rootNode, refreshPageTarget(selected, rootNode), true,
+            kept -> {
+                treeConnectionName = connectionName;
+                ldapTree.expandRow(0);
+                refreshLoadedNodes(selected, kept);
+                if (selected.isLiveUpdates()) {
+                    startLiveUpdates(connectionName, baseDn);
+                }
+            },
+            e -> {
+                if (!incremental) {
+                    treeModel.setRoot(LdapTreeNode.createRootNode(baseDn));
                 }
-                rootNode.add(childNode);
+                Messages.showErrorDialog("載入樹狀結構失敗: " + e.getMessage(), "錯誤");
+            }
+        );
+    }
+    
+    /**
+     * 重新整理時處理已載入過子節點的既有節點：展開中的重新查詢並套用差異，收合的則留待下次展開再載入
+     */
+    private void refreshLoadedNodes(LdapConnection selected, List<LdapTreeNode> nodes) {
+        for (LdapTreeNode node : nodes) {
+            if (!node.isChildrenLoaded() || node.isLoading()) {
+                continue;
+            }
+            if (!ldapTree.isExpanded(new TreePath(node.getPath()))) {
+                closeChildCursors(node);
+                node.setChildrenLoaded(false);
+                treeModel.updateChildren(node, Collections.singletonList(LdapTreeNode.createPlaceholder()));
+                continue;
             }
             
-            treeModel.setRoot(rootNode);
-            ldapTree.expandRow(0);
-            
-        } catch (LDAPException e) {
-            Messages.showErrorDialog("載入樹狀結構失敗: " + e.getMessage(), "錯誤");
+            loadChildPages(selected, node, refreshPageTarget(selected, node), true,
+                kept -> refreshLoadedNodes(selected, kept),
+                // 保留原有子節點，錯誤已由上層的重新整理回報
+                e -> { }
+            );
         }
     }
     
+    /**
+     * 重新整理時至少重新取得目前已顯示的子節點數，避免使用者已載入的頁面消失
+     */
+    private int refreshPageTarget(LdapConnection selected, LdapTreeNode node) {
+        int shown = treeModel.getEntryChildren(node).size();
+        return Math.min(Math.max(shown, selected.getPageSize()), Math.max(1, selected.getMaxChildrenPerNode()));
+    }
+    
     private void loadChildrenIfNeeded(LdapTreeNode node) {
-        if (node.getEntry() == null) {
+        if (!node.isEntryNode()) {
             return; // 根或 placeholder 無需載入
         }
-        if (node.isChildrenLoaded()) {
+        if (node.isChildrenLoaded() || node.isLoading()) {
             return;
         }
 
@@ -321,58 +437,655 @@ public class LdapToolWindowPanel extends JPanel {
         if (selected == null || !selected.isConnected()) {
             return;
         }
-
-        try {
-            String parentDn = node.getEntry().getDN();
-            List<Entry> children = connectionService.getChildren(selected.getName(), parentDn);
-
-            node.removeAllChildren();
-            for (Entry entry : children) {
-                LdapTreeNode childNode = new LdapTreeNode(entry.getDN(), entry);
-                // 只有非用戶節點才加入 placeholder 以支援更深層展開
-                if (!isUserNode(entry)) {
-                    childNode.add(new LdapTreeNode("...", null));
+        
+        treeModel.updateChildren(node, Collections.singletonList(LdapTreeNode.createLoadingNode()));
+        loadChildPages(selected, node, selected.getPageSize(), true,
+            kept -> {
+                node.setChildrenLoaded(true);
+                prefetchNextLevel(selected, node);
+            },
+            e -> {
+                treeModel.updateChildren(node, Collections.singletonList(LdapTreeNode.createPlaceholder()));
+                Messages.showErrorDialog("載入子節點失敗: " + e.getMessage(), "錯誤");
+            }
+        );
+    }
+    
+    /**
+     * 預取前幾個可展開子節點的下一層，讓使用者接著展開時可直接由快取顯示
+     */
+    private void prefetchNextLevel(LdapConnection selected, LdapTreeNode node) {
+        if (!selected.isPrefetchEnabled()) {
+            return;
+        }
+        List<LdapTreeNode> candidates = new ArrayList<>();
+        for (LdapTreeNode child : treeModel.getEntryChildren(node)) {
+            if (candidates.size() >= selected.getPrefetchChildCount()) {
+                break;
+            }
+            // 已知超過一頁的子節點不會被快取，預取沒有效益
+            if (child.isExpandable() && !child.isChildrenLoaded()
+                    && child.getSubordinateCount() <= selected.getPageSize()) {
+                candidates.add(child);
+            }
+        }
+        prefetcher.prefetch(selected.getName(), candidates, selected.getPrefetchConcurrency());
+    }
+    
+    private void loadMoreChildren(LdapTreeNode parent) {
+        if (parent == null || parent.isLoading()) {
+            return;
+        }
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            return;
+        }
+        loadChildPages(selected, parent, selected.getPageSize(), false,
+            kept -> { },
+            e -> Messages.showErrorDialog("載入子節點失敗: " + e.getMessage(), "錯誤")
+        );
+    }
+    
+    private void loadMoreIfVisible() {
+        Rectangle visible = ldapTree.getVisibleRect();
+        int lastRow = ldapTree.getClosestRowForLocation(visible.x, visible.y + visible.height - 1);
+        TreePath path = lastRow >= 0 ? ldapTree.getPathForRow(lastRow) : null;
+        if (path != null && path.getLastPathComponent() instanceof LdapTreeNode) {
+            LdapTreeNode node = (LdapTreeNode) path.getLastPathComponent();
+            if (node.isLoadMoreNode()) {
+                loadMoreChildren((LdapTreeNode) node.getParent());
+            }
+        }
+    }
+    
+    /**
+     * 以分頁游標載入子節點，每次只取得需要的頁數
+     * 還有後續頁面時在最後加上「載入後續」節點；已顯示的子節點達到連線設定的上限時改為提示節點並釋放游標
+     *
+     * @param wanted  本次至少要取得的條目數（以頁為單位讀取）
+     * @param replace 為 true 時重新查詢並以結果取代現有子節點，否則接續既有游標載入下一批
+     */
+    private void loadChildPages(LdapConnection selected, LdapTreeNode node, int wanted, boolean replace,
+                                Consumer<List<LdapTreeNode>> onLoaded, Consumer<LDAPException> onError) {
+        int limit = Math.max(1, selected.getMaxChildrenPerNode());
+        int pageSize = selected.getPageSize();
+        LdapSearchCursor cursor = replace ? null : childCursors.get(node);
+        if (cursor == null) {
+            if (!replace) {
+                // 游標已釋放（收合或被較新的游標擠出），重新查詢到目前顯示的位置之後
+                wanted += treeModel.getEntryChildren(node).size();
+                replace = true;
+            }
+            closeChildCursor(node);
+            try {
+                cursor = connectionService.openChildrenCursor(selected.getName(), node.getDn());
+            } catch (LDAPException e) {
+                onError.accept(e);
+                return;
+            }
+            openChildCursor(node, cursor);
+        }
+        
+        LdapSearchCursor pageCursor = cursor;
+        boolean replaceChildren = replace;
+        int shown = replace ? 0 : treeModel.getEntryChildren(node).size();
+        int target = Math.min(wanted, limit - shown);
+        LdapTreeNode root = (LdapTreeNode) treeModel.getRoot();
+        node.setLoading(true);
+        
+        taskExecutor.submit(
+            () -> {
+                List<Entry> entries = new ArrayList<>();
+                while (entries.size() < target && pageCursor.hasMore()) {
+                    entries.addAll(pageCursor.nextPage());
+                }
+                return entries;
+            },
+            entries -> {
+                node.setLoading(false);
+                if (treeModel.getRoot() != root || node.getRoot() != root) {
+                    return; // 樹已重建或節點已被移除
+                }
+                
+                // 游標在載入期間被關閉時無法得知是否讀完，保留「載入後續」讓使用者重新查詢
+                boolean more = childCursors.get(node) != pageCursor || pageCursor.hasMore();
+                List<LdapTreeNode> children = replaceChildren ? new ArrayList<>() : treeModel.getEntryChildren(node);
+                children.addAll(createChildNodes(entries));
+                boolean limited = children.size() > limit || (children.size() == limit && more);
+                if (children.size() > limit) {
+                    children = new ArrayList<>(children.subList(0, limit));
+                }
+                if (limited || !more) {
+                    closeChildCursor(node);
                 }
-                node.add(childNode);
+                if (limited) {
+                    children.add(LdapTreeNode.createLimitNode(limit));
+                } else if (more) {
+                    children.add(LdapTreeNode.createLoadMoreNode(pageSize));
+                }
+                List<LdapTreeNode> kept = treeModel.updateChildren(node, children);
+                for (LdapTreeNode child : kept) {
+                    syncPlaceholder(child);
+                }
+                onLoaded.accept(kept);
+            },
+            e -> {
+                node.setLoading(false);
+                closeChildCursor(node);
+                onError.accept(e);
+            },
+            () -> {
+                // 結果因切換連線被捨棄時，恢復成可重新載入的狀態
+                node.setLoading(false);
             }
-
-            node.setChildrenLoaded(true);
-            treeModel.reload(node);
+        );
+    }
+    
+    private void openChildCursor(LdapTreeNode node, LdapSearchCursor cursor) {
+        childCursors.put(node, cursor);
+        // 超過上限時釋放最久未使用的游標，該節點之後載入後續時會重新查詢
+        Iterator<Map.Entry<LdapTreeNode, LdapSearchCursor>> iterator = childCursors.entrySet().iterator();
+        while (childCursors.size() > MAX_OPEN_CHILD_CURSORS && iterator.hasNext()) {
+            LdapSearchCursor eldest = iterator.next().getValue();
+            iterator.remove();
+            closeInBackground(eldest);
+        }
+    }
+    
+    private void closeChildCursor(LdapTreeNode node) {
+        LdapSearchCursor cursor = childCursors.remove(node);
+        if (cursor != null) {
+            closeInBackground(cursor);
+        }
+    }
+    
+    /**
+     * 關閉節點及其子樹中的游標；node 為 null 時關閉全部
+     */
+    private void closeChildCursors(LdapTreeNode node) {
+        Iterator<Map.Entry<LdapTreeNode, LdapSearchCursor>> iterator = childCursors.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<LdapTreeNode, LdapSearchCursor> entry = iterator.next();
+            if (node == null || node.isNodeDescendant(entry.getKey())) {
+                iterator.remove();
+                closeInBackground(entry.getValue());
+            }
+        }
+    }
+    
+    private static void closeInBackground(LdapSearchCursor cursor) {
+        // 關閉未讀完的游標會通知伺服器釋放分頁狀態，不在 EDT 上等待
+        ApplicationManager.getApplication().executeOnPooledThread(cursor::close);
+    }
+    
+    private List<LdapTreeNode> createChildNodes(List<Entry> children) {
+        List<LdapTreeNode> nodes = new ArrayList<>(children.size());
+        for (Entry entry : children) {
+            nodes.add(createChildNode(entry));
+        }
+        return nodes;
+    }
+    
+    private LdapTreeNode createChildNode(Entry entry) {
+        LdapTreeNode childNode = new LdapTreeNode(entry.getDN(), entry);
+        // 只有可能有子條目的節點才加入 placeholder 以支援更深層展開
+        if (childNode.isExpandable()) {
+            childNode.add(LdapTreeNode.createPlaceholder());
+        }
+        return childNode;
+    }
+    
+    /**
+     * 尚未載入子節點的節點依最新的子條目資訊加上或移除 placeholder
+     */
+    private void syncPlaceholder(LdapTreeNode node) {
+        if (node.isChildrenLoaded() || node.isLoading()) {
+            return;
+        }
+        boolean hasPlaceholder = node.getChildCount() > 0;
+        if (node.isExpandable() != hasPlaceholder) {
+            treeModel.updateChildren(node, node.isExpandable()
+                    ? Collections.singletonList(LdapTreeNode.createPlaceholder())
+                    : Collections.emptyList());
+        }
+    }
+    
+    /**
+     * 訂閱目前連線的變更通知，樹狀視圖以增量方式反映伺服器上的變更
+     */
+    private void startLiveUpdates(String connectionName, String baseDn) {
+        stopLiveUpdates();
+        TreeChangeListener listener = new TreeChangeListener();
+        changeListener = listener;
+        taskExecutor.submit(
+            () -> {
+                LdapChangeSubscription subscription = connectionService.watchChanges(connectionName, baseDn, listener);
+                listener.attach(subscription);
+                return subscription;
+            },
+            subscription -> {
+                // 訂閱由監聽器持有，停止時由 stopLiveUpdates 取消
+            },
+            e -> {
+                if (changeListener == listener) {
+                    changeListener = null;
+                    Messages.showWarningDialog("無法啟用即時更新: " + e.getMessage(), "警告");
+                }
+            }
+        );
+    }
+    
+    private void stopLiveUpdates() {
+        if (changeListener != null) {
+            changeListener.detach();
+            changeListener = null;
+        }
+    }
+    
+    private void applyEntryAdded(Entry entry) {
+        if (treeModel.findNode(entry.getDN()) != null) {
+            applyEntryModified(entry);
+            return;
+        }
+        String parentDn;
+        try {
+            parentDn = entry.getParentDNString();
         } catch (LDAPException e) {
-            Messages.showErrorDialog("載入子節點失敗: " + e.getMessage(), "錯誤");
+            return;
+        }
+        LdapTreeNode parent = parentDn == null ? null : treeModel.findNode(parentDn);
+        if (parent == null) {
+            return;
+        }
+        // 尚未展開的節點會在展開時載入，不需插入；原本是葉節點時補上 placeholder 讓它可以展開
+        if (parent.isEntryNode() && !parent.isChildrenLoaded()) {
+            if (parent.getChildCount() == 0 && !parent.isLoading()) {
+                treeModel.updateChildren(parent, Collections.singletonList(LdapTreeNode.createPlaceholder()));
+            }
+            return;
+        }
+        treeModel.insertChild(parent, createChildNode(entry));
+    }
+    
+    private void applyEntryModified(Entry entry) {
+        LdapTreeNode node = treeModel.findNode(entry.getDN());
+        if (node == null) {
+            // 無法區分變更類型的伺服器（AD）新增條目時也會走到這裡
+            applyEntryAdded(entry);
+            return;
+        }
+        node.updateHeader(entry);
+        treeModel.nodeChanged(node);
+        syncPlaceholder(node);
+        if (detailsNode == node) {
+            showEntryDetails(node);
+        }
+    }
+    
+    private void applyEntryDeleted(String dn) {
+        LdapTreeNode node = treeModel.findNode(dn);
+        if (node == null || node.getParent() == null) {
+            return;
+        }
+        closeChildCursors(node);
+        treeModel.removeNodeFromParent(node);
+        if (detailsNode != null && node.isNodeDescendant(detailsNode)) {
+            detailsNode = null;
+            detailsView.showMessage("");
         }
     }
 
-    private void showEntryDetails(LdapTreeNode node) {
-        if (node.getEntry() == null) {
-            detailsArea.setText("沒有詳細資訊");
+    /**
+     * 取得樹狀視圖中選取節點的 DN，未選取條目時使用根節點（基礎 DN）
+     */
+    private String getSelectedDn() {
+        Object selectedNode = ldapTree.getLastSelectedPathComponent();
+        if (selectedNode instanceof LdapTreeNode && ((LdapTreeNode) selectedNode).isEntryNode()) {
+            return ((LdapTreeNode) selectedNode).getDn();
+        }
+        return ((LdapTreeNode) treeModel.getRoot()).getDn();
+    }
+    
+    private void exportSelectedSubtree() {
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            Messages.showWarningDialog("請先連線到 LDAP 伺服器", "警告");
             return;
         }
         
-        Entry entry = node.getEntry();
-        StringBuilder details = new StringBuilder();
-        details.append("DN: ").append(entry.getDN()).append("\n\n");
+        String connectionName = selected.getName();
+        String baseDn = getSelectedDn();
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("匯出 LDIF",
+                "匯出 " + (baseDn.isEmpty() ? LdapTreeNode.ROOT_TEXT : baseDn) + " 以下的所有條目；檔名以 .gz 結尾時以 gzip 壓縮",
+                "ldif", "gz");
+        VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, "export.ldif");
+        if (fileWrapper == null) {
+            return;
+        }
+        Path target = fileWrapper.getFile().toPath();
+        boolean compress = target.getFileName().toString().endsWith(".gz");
         
-        entry.getAttributes().forEach(attr -> {
-            details.append(attr.getName()).append(": ");
-            String[] values = attr.getValues();
-            if (values.length == 1) {
-                details.append(values[0]);
-            } else {
-                details.append("\n");
-                for (String value : values) {
-                    details.append("  - ").append(value).append("\n");
+        // 匯出在背景進行，進度與取消透過 ProgressIndicator
+        new Task.Backgroundable(project, "匯出 LDIF", true) {
+            private long exported;
+            private Exception failure;
+            
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText("正在匯出 " + (baseDn.isEmpty() ? LdapTreeNode.ROOT_TEXT : baseDn));
+                try {
+                    exported = connectionService.exportLdif(connectionName, baseDn, SearchScope.SUB,
+                            "(objectClass=*)", target, compress, indicator);
+                } catch (LDAPException | IOException e) {
+                    failure = e;
                 }
             }
-            details.append("\n");
-        });
+            
+            @Override
+            public void onSuccess() {
+                if (failure != null) {
+                    Messages.showErrorDialog("匯出 LDIF 失敗: " + failure.getMessage(), "錯誤");
+                } else {
+                    Messages.showInfoMessage("已匯出 " + exported + " 筆條目至 " + target, "匯出完成");
+                }
+            }
+        }.queue();
+    }
+    
+    private void importLdifFile() {
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            Messages.showWarningDialog("請先連線到 LDAP 伺服器", "警告");
+            return;
+        }
+        
+        FileChooserDescriptor descriptor = new FileChooserDescriptor(true, false, false, false, false, false)
+                .withTitle("匯入 LDIF")
+                .withFileFilter(file -> file.getName().endsWith(".ldif") || file.getName().endsWith(".ldif.gz"));
+        VirtualFile file = FileChooser.chooseFile(descriptor, project, null);
+        if (file == null) {
+            return;
+        }
+        Path source = file.toNioPath();
+        String connectionName = selected.getName();
+        
+        new Task.Backgroundable(project, "匯入 LDIF", true) {
+            private LdifImportResult result;
+            private Exception failure;
+            
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText("正在匯入 " + source.getFileName());
+                try {
+                    result = connectionService.importLdif(connectionName, source, indicator);
+                } catch (LDAPException | IOException e) {
+                    failure = e;
+                }
+            }
+            
+            @Override
+            public void onFinished() {
+                // 取消時也顯示已完成部分的統計
+                if (failure != null) {
+                    Messages.showErrorDialog("匯入 LDIF 失敗: " + failure.getMessage(), "錯誤");
+                } else if (result != null) {
+                    showImportResult(result);
+                }
+                refreshTree();
+            }
+        }.queue();
+    }
+    
+    private void showImportResult(LdifImportResult result) {
+        StringBuilder message = new StringBuilder();
+        message.append(result.isCanceled() ? "匯入已取消\n\n" : "匯入完成\n\n");
+        message.append("記錄數: ").append(result.getRecords()).append("\n");
+        message.append("成功: ").append(result.getSucceeded()).append("\n");
+        message.append("失敗: ").append(result.getFailed()).append("\n");
+        message.append("重試: ").append(result.getRetried()).append("\n");
+        message.append(String.format("耗時: %.1f 秒（每秒 %.0f 筆）\n",
+                result.getElapsedMillis() / 1000.0, result.getRecordsPerSecond()));
+        if (!result.getErrorsByResultCode().isEmpty()) {
+            message.append("\n錯誤類型:\n");
+            result.getErrorsByResultCode().forEach((code, count) ->
+                    message.append("  ").append(code).append(": ").append(count).append("\n"));
+            message.append("\n錯誤範例:\n");
+            result.getErrorSamples().stream().limit(10).forEach(sample ->
+                    message.append("  ").append(sample).append("\n"));
+        }
+        
+        if (result.getFailed() > 0) {
+            Messages.showWarningDialog(message.toString(), "LDIF 匯入");
+        } else {
+            Messages.showInfoMessage(message.toString(), "LDIF 匯入");
+        }
+    }
+    
+    private void batchModifySelected() {
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            Messages.showWarningDialog("請先連線到 LDAP 伺服器", "警告");
+            return;
+        }
+        
+        BatchModifyDialog dialog = new BatchModifyDialog(project, getSelectedDn());
+        if (!dialog.showAndGet()) {
+            return;
+        }
+        String connectionName = selected.getName();
+        String baseDn = dialog.getBaseDn();
+        SearchScope scope = dialog.getScope();
+        String filter = dialog.getFilter();
+        List<Modification> modifications = dialog.getModifications();
         
-        detailsArea.setText(details.toString());
-        detailsArea.setCaretPosition(0);
+        // 先計算符合的筆數（dry run），確認後才實際修改
+        taskExecutor.submit(
+            () -> connectionService.countMatches(connectionName, baseDn, scope, filter),
+            count -> {
+                if (count == 0) {
+                    Messages.showInfoMessage("沒有符合條件的條目", "批次修改");
+                    return;
+                }
+                int answer = Messages.showYesNoDialog(
+                    "符合條件的條目共 " + count + " 筆，確定要套用修改嗎？",
+                    "確認批次修改",
+                    Messages.getQuestionIcon()
+                );
+                if (answer == Messages.YES) {
+                    runBatchModify(connectionName, baseDn, scope, filter, modifications);
+                }
+            },
+            e -> Messages.showErrorDialog("計算符合的條目失敗: " + e.getMessage(), "錯誤")
+        );
+    }
+    
+    private void runBatchModify(String connectionName, String baseDn, SearchScope scope, String filter,
+                                List<Modification> modifications) {
+        new Task.Backgroundable(project, "批次修改", true) {
+            private LdapBatchResult result;
+            private Exception failure;
+            
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText("正在修改 " + filter + " 的條目");
+                try {
+                    result = connectionService.batchModify(connectionName, baseDn, scope, filter, modifications, indicator);
+                } catch (LDAPException e) {
+                    failure = e;
+                }
+            }
+            
+            @Override
+            public void onFinished() {
+                if (failure != null) {
+                    Messages.showErrorDialog("批次修改失敗: " + failure.getMessage(), "錯誤");
+                } else if (result != null) {
+                    showBatchResult("批次修改", result);
+                }
+                refreshTree();
+            }
+        }.queue();
+    }
+    
+    private void deleteSelectedSubtree() {
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            Messages.showWarningDialog("請先連線到 LDAP 伺服器", "警告");
+            return;
+        }
+        // 不以基礎 DN 作為預設，必須明確選取條目
+        Object selectedNode = ldapTree.getLastSelectedPathComponent();
+        if (!(selectedNode instanceof LdapTreeNode) || !((LdapTreeNode) selectedNode).isEntryNode()) {
+            Messages.showWarningDialog("請在樹狀圖中選擇要刪除的條目", "警告");
+            return;
+        }
+        String dn = ((LdapTreeNode) selectedNode).getDn();
+        String connectionName = selected.getName();
+        
+        // 先計算子樹的條目數，讓使用者確認刪除範圍
+        taskExecutor.submit(
+            () -> connectionService.countMatches(connectionName, dn, SearchScope.SUB, "(objectClass=*)"),
+            count -> {
+                int answer = Messages.showYesNoDialog(
+                    "確定要刪除 \"" + dn + "\" 及其下所有條目（共 " + count + " 筆）嗎？此操作無法復原。",
+                    "確認刪除子樹",
+                    Messages.getWarningIcon()
+                );
+                if (answer == Messages.YES) {
+                    runDeleteSubtree(connectionName, dn);
+                }
+            },
+            e -> Messages.showErrorDialog("計算子樹條目數失敗: " + e.getMessage(), "錯誤")
+        );
+    }
+    
+    private void runDeleteSubtree(String connectionName, String dn) {
+        new Task.Backgroundable(project, "刪除子樹", true) {
+            private LdapBatchResult result;
+            private Exception failure;
+            
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText("正在刪除 " + dn);
+                try {
+                    result = connectionService.deleteSubtree(connectionName, dn, indicator);
+                } catch (LDAPException e) {
+                    failure = e;
+                }
+            }
+            
+            @Override
+            public void onFinished() {
+                if (failure != null) {
+                    Messages.showErrorDialog("刪除子樹失敗: " + failure.getMessage(), "錯誤");
+                } else if (result != null) {
+                    showBatchResult("刪除子樹", result);
+                }
+                refreshTree();
+            }
+        }.queue();
+    }
+    
+    private void showBatchResult(String title, LdapBatchResult result) {
+        StringBuilder message = new StringBuilder();
+        message.append(result.isCanceled() ? "作業已取消\n\n" : "作業完成\n\n");
+        if (result.isSubtreeRemovedByServer()) {
+            message.append("整個子樹已由伺服器刪除（伺服器不回報刪除的條目數）\n");
+            message.append(String.format("耗時: %.1f 秒\n", result.getElapsedMillis() / 1000.0));
+            Messages.showInfoMessage(message.toString(), title);
+            return;
+        }
+        message.append("成功: ").append(result.getSucceeded()).append("\n");
+        message.append("失敗: ").append(result.getFailed()).append("\n");
+        message.append(String.format("耗時: %.1f 秒（每秒 %.0f 筆）\n",
+                result.getElapsedMillis() / 1000.0, result.getEntriesPerSecond()));
+        if (!result.getErrorsByResultCode().isEmpty()) {
+            message.append("\n錯誤類型:\n");
+            result.getErrorsByResultCode().forEach((code, count) ->
+                    message.append("  ").append(code).append(": ").append(count).append("\n"));
+            message.append("\n錯誤範例:\n");
+            result.getErrorSamples().stream().limit(10).forEach(sample ->
+                    message.append("  ").append(sample).append("\n"));
+        }
+        
+        if (result.getFailed() > 0) {
+            Messages.showWarningDialog(message.toString(), title);
+        } else {
+            Messages.showInfoMessage(message.toString(), title);
+        }
+    }
+    
+    private void showEntryDetails(LdapTreeNode node) {
+        detailsNode = node;
+        if (!node.isEntryNode()) {
+            detailsView.showMessage("沒有詳細資訊");
+            return;
+        }
+        
+        LdapConnection selected = (LdapConnection) connectionComboBox.getSelectedItem();
+        if (selected == null || !selected.isConnected()) {
+            detailsView.showMessage("請先連線到 LDAP 伺服器");
+            return;
+        }
+        
+        // 樹狀節點只保留摘要，完整條目透過服務的條目快取取得
+        String connectionName = selected.getName();
+        String dn = node.getDn();
+        detailsView.showMessage("DN: " + dn + "\n\n" + LdapTreeNode.LOADING_TEXT);
+        taskExecutor.submit(
+            () -> loadEntry(connectionName, dn, false),
+            loaded -> {
+                // 使用者已點選其他節點時不覆蓋
+                if (detailsNode != node) {
+                    return;
+                }
+                if (loaded == null) {
+                    detailsView.showMessage("條目不存在: " + dn);
+                } else {
+                    renderEntryDetails(loaded.entry, loaded.schema);
+                }
+            },
+            e -> {
+                if (detailsNode == node) {
+                    detailsView.showMessage("載入詳細資訊失敗: " + e.getMessage());
+                }
+            }
+        );
+    }
+    
+    /**
+     * 取得完整條目與連線的結構描述，條目不存在時回傳 null
+     * forUpdate 為 true 時略過快取，確保編輯時以伺服器上目前的內容作為比對基準
+     */
+    private LoadedEntry loadEntry(String connectionName, String dn, boolean forUpdate) throws LDAPException {
+        Entry entry = forUpdate
+                ? connectionService.getEntryForUpdate(connectionName, dn)
+                : connectionService.getEntry(connectionName, dn);
+        if (entry == null) {
+            return null;
+        }
+        Schema schema;
+        try {
+            schema = connectionService.getSchema(connectionName);
+        } catch (LDAPException e) {
+            // 沒有讀取結構描述的權限時，改由屬性值推斷
+            schema = null;
+        }
+        return new LoadedEntry(entry, schema);
+    }
+    
+    private void renderEntryDetails(Entry entry, Schema schema) {
+        detailsView.showEntry(entry, schema);
     }
     
     private void showEditDialog(LdapTreeNode node) {
-        if (node.getEntry() == null) {
+        if (!node.isEntryNode()) {
             return;
         }
         
@@ -382,33 +1095,136 @@ public class LdapToolWindowPanel extends JPanel {
             return;
         }
         
-        EntryEditDialog dialog = new EntryEditDialog(project, node.getEntry());
+        // 編輯前先取得完整條目，避免以瀏覽用的部分屬性進行比對
+        String connectionName = selected.getName();
+        String dn = node.getDn();
+        taskExecutor.submit(
+            () -> loadEntry(connectionName, dn, true),
+            loaded -> {
+                if (loaded == null) {
+                    Messages.showErrorDialog("條目不存在: " + dn, "錯誤");
+                    return;
+                }
+                editEntry(connectionName, node, loaded.entry, loaded.schema);
+            },
+            e -> Messages.showErrorDialog("載入條目失敗: " + e.getMessage(), "錯誤")
+        );
+    }
+    
+    private void editEntry(String connectionName, LdapTreeNode node, Entry originalEntry, Schema schema) {
+        EntryEditDialog dialog = new EntryEditDialog(project, originalEntry, schema);
         if (dialog.showAndGet()) {
             if (dialog.isModified()) {
                 Entry modifiedEntry = dialog.getModifiedEntry();
-                try {
-                    // 更新 LDAP 伺服器上的條目
-                    connectionService.modifyEntry(selected.getName(), node.getEntry(), modifiedEntry);
-                    
-                    // 更新樹狀節點的條目資料
-                    node.setEntry(modifiedEntry);
-                    
-                    // 重新整理詳細資訊面板
-                    showEntryDetails(node);
-                    
-                    Messages.showInfoMessage("條目已成功更新", "成功");
-                } catch (LDAPException e) {
-                    Messages.showErrorDialog("更新條目失敗: " + e.getMessage(), "錯誤");
-                }
+                taskExecutor.submit(
+                    () -> {
+                        // 更新 LDAP 伺服器上的條目
+                        connectionService.modifyEntry(connectionName, originalEntry, modifiedEntry);
+                        return modifiedEntry;
+                    },
+                    updated -> {
+                        // 更新樹狀節點的條目資料
+                        node.updateHeader(updated);
+                        treeModel.nodeChanged(node);
+                        
+                        // 重新整理詳細資訊面板
+                        detailsNode = node;
+                        renderEntryDetails(updated, schema);
+                        
+                        Messages.showInfoMessage("條目已成功更新", "成功");
+                    },
+                    e -> Messages.showErrorDialog("更新條目失敗: " + e.getMessage(), "錯誤")
+                );
             }
         }
     }
     
+    @Override
+    public void dispose() {
+        prefetcher.dispose();
+        stopLiveUpdates();
+        closeChildCursors(null);
+        taskExecutor.dispose();
+    }
+    
     /**
-     * 檢查條目是否為用戶節點
+     * 背景載入的條目與對應的結構描述
      */
-    private boolean isUserNode(Entry entry) {
-        return entry.hasObjectClass("person") || entry.hasObjectClass("user");
+    private static final class LoadedEntry {
+        private final Entry entry;
+        private final Schema schema;
+        
+        private LoadedEntry(Entry entry, Schema schema) {
+            this.entry = entry;
+            this.schema = schema;
+        }
+    }
+    
+    /**
+     * 將變更通知轉送到 EDT 套用到樹狀視圖
+     * 停止監聽後送達的通知一律忽略；訂閱建立前就已停止時，建立後立即取消
+     */
+    private class TreeChangeListener implements LdapChangeListener {
+        // 在 EDT 上建立，變更只在工具視窗的模態狀態下套用，不會在編輯對話框開啟時修改樹或疊加警告
+        private final ModalityState modalityState = ModalityState.defaultModalityState();
+        private volatile boolean detached;
+        private volatile LdapChangeSubscription subscription;
+        
+        void attach(LdapChangeSubscription subscription) {
+            this.subscription = subscription;
+            if (detached) {
+                subscription.cancel();
+            }
+        }
+        
+        void detach() {
+            detached = true;
+            LdapChangeSubscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+        
+        @Override
+        public void entryAdded(Entry entry) {
+            post(() -> applyEntryAdded(entry));
+        }
+        
+        @Override
+        public void entryModified(Entry entry) {
+            post(() -> applyEntryModified(entry));
+        }
+        
+        @Override
+        public void entryDeleted(String dn) {
+            post(() -> applyEntryDeleted(dn));
+        }
+        
+        @Override
+        public void entryRenamed(String previousDn, Entry entry) {
+            post(() -> {
+                applyEntryDeleted(previousDn);
+                applyEntryAdded(entry);
+            });
+        }
+        
+        @Override
+        public void watchEnded(LDAPException cause) {
+            if (cause != null) {
+                post(() -> {
+                    changeListener = null;
+                    Messages.showWarningDialog("即時更新已中止: " + cause.getMessage(), "警告");
+                });
+            }
+        }
+        
+        private void post(Runnable action) {
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (!detached && changeListener == this) {
+                    action.run();
+                }
+            }, modalityState);
+        }
     }
     
     /**
@@ -423,13 +1239,16 @@ public class LdapToolWindowPanel extends JPanel {
                 LdapTreeNode node = (LdapTreeNode) value;
                 setText(node.getDisplayName());
                 
-                if (node.getEntry() != null) {
+                if (node.isEntryNode()) {
                     // 根據物件類別在文字前添加標識符
-                    Entry entry = node.getEntry();
                     String displayText = node.getDisplayName();
-                    if (entry.hasObjectClass("organizationalUnit")) {
+                    String countText = node.getSubordinateCountText();
+                    if (!countText.isEmpty()) {
+                        displayText = displayText + " " + countText;
+                    }
+                    if (node.isOrganizationalUnit()) {
                         setText("[OU] " + displayText);
-                    } else if (entry.hasObjectClass("person") || entry.hasObjectClass("user")) {
+                    } else if (node.isUserNode()) {
                         setText("[User] " + displayText);
                     } else {
                         setText("[Entry] " + displayText);
@@ -0,0 +1,124 @@
+package com.ldapplugin.ui;
+
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.ldapplugin.service.LdapSlowOperation;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 慢速操作紀錄表格；游標停在列上時以提示顯示完整的請求內容
+ */
+class SlowOperationsView extends JPanel {
+
+    private final SlowOperationsTableModel tableModel = new SlowOperationsTableModel();
+    private final JLabel titleLabel = new JLabel();
+    private final JBTable table = new JBTable(tableModel) {
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            int row = rowAtPoint(event.getPoint());
+            return row < 0 ? null : tableModel.getOperation(convertRowIndexToModel(row)).toString();
+        }
+    };
+
+    SlowOperationsView(JComponent... actions) {
+        super(new BorderLayout());
+
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD));
+        header.add(titleLabel);
+        for (JComponent action : actions) {
+            header.add(action);
+        }
+        add(header, BorderLayout.NORTH);
+
+        table.getColumnModel().getColumn(0).setPreferredWidth(150);
+        table.getColumnModel().getColumn(4).setPreferredWidth(250);
+        table.getColumnModel().getColumn(6).setPreferredWidth(250);
+        add(new JBScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * @param thresholdMillis 連線設定的門檻，0 表示停用
+     * @param sampleRate      每 N 筆超過門檻的操作記錄 1 筆
+     */
+    void showOperations(List<LdapSlowOperation> operations, long thresholdMillis, int sampleRate) {
+        if (thresholdMillis > 0) {
+            String sampling = sampleRate > 1 ? "，每 " + sampleRate + " 筆取樣 1 筆" : "";
+            titleLabel.setText("慢速操作（超過 " + thresholdMillis + " ms" + sampling + "，共 " + operations.size() + " 筆）");
+        } else {
+            titleLabel.setText("慢速操作（未啟用，可在連線設定中指定門檻）");
+        }
+        tableModel.setOperations(operations);
+    }
+
+    private static final class SlowOperationsTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {
+                "時間", "操作", "耗時 (ms)", "首筆條目 (ms)", "DN", "範圍", "篩選器", "條目數", "結果", "伺服器"
+        };
+
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        private List<LdapSlowOperation> operations = new ArrayList<>();
+
+        void setOperations(List<LdapSlowOperation> operations) {
+            this.operations = operations;
+            fireTableDataChanged();
+        }
+
+        LdapSlowOperation getOperation(int row) {
+            return operations.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return operations.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            LdapSlowOperation operation = operations.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return timeFormat.format(new Date(operation.getTimestamp()));
+                case 1:
+                    return operation.getOperationType().name();
+                case 2:
+                    return String.format("%.1f", operation.getDurationMicros() / 1000.0);
+                case 3:
+                    return operation.getTimeToFirstEntryMicros() < 0
+                            ? "" : String.format("%.1f", operation.getTimeToFirstEntryMicros() / 1000.0);
+                case 4:
+                    return operation.getDn();
+                case 5:
+                    return operation.getScope() == null ? "" : operation.getScope().getName();
+                case 6:
+                    return operation.getFilter() == null ? "" : operation.getFilter();
+                case 7:
+                    return operation.getEntryCount();
+                case 8:
+                    return operation.getResultCode().getName();
+                case 9:
+                    return operation.getServer();
+                default:
+                    return "";
+            }
+        }
+    }
+}
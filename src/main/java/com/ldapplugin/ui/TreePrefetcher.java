@@ -0,0 +1,121 @@
+package com.ldapplugin.ui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ldapplugin.service.LdapConnectionService;
+import com.ldapplugin.ui.tree.LdapTreeNode;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 樹狀視圖的下一層預取器
+ * 節點展開後在背景預先查詢前幾個可展開子節點的子條目，結果留在服務的搜尋快取中，使用者接著展開時即可直接顯示。
+ * 預取使用獨立的執行緒池並限制同時查詢數，不與前景載入搶用執行緒；佇列中的工作可依子樹或整批取消
+ */
+final class TreePrefetcher implements Disposable {
+
+    // 預取執行緒的上限，實際同時查詢數再依連線設定限制
+    private static final int MAX_THREADS = 4;
+
+    private final LdapConnectionService connectionService;
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("LDAP Prefetch", MAX_THREADS);
+    private final Deque<PrefetchRequest> queue = new ArrayDeque<>();
+    private int running;
+    private int concurrency = 1;
+    private boolean disposed;
+
+    TreePrefetcher(LdapConnectionService connectionService) {
+        this.connectionService = connectionService;
+    }
+
+    /**
+     * 排入節點的預取工作；已載入子節點或已在佇列中的節點會略過
+     *
+     * @param concurrency 同時進行的預取查詢數
+     */
+    synchronized void prefetch(String connectionName, List<LdapTreeNode> nodes, int concurrency) {
+        if (disposed) {
+            return;
+        }
+        this.concurrency = Math.max(1, Math.min(concurrency, MAX_THREADS));
+        for (LdapTreeNode node : nodes) {
+            if (node.isChildrenLoaded() || isQueued(node)) {
+                continue;
+            }
+            queue.addLast(new PrefetchRequest(connectionName, node.getDn(), node));
+        }
+        drain();
+    }
+
+    private boolean isQueued(LdapTreeNode node) {
+        for (PrefetchRequest request : queue) {
+            if (request.node == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取消節點子樹中尚未開始的預取（節點收合時）；執行中的查詢只讀一頁，讓它自然完成
+     */
+    synchronized void cancel(LdapTreeNode subtreeRoot) {
+        Iterator<PrefetchRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (subtreeRoot.isNodeDescendant(iterator.next().node)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 取消所有尚未開始的預取（切換連線或重建樹時）
+     */
+    synchronized void cancelAll() {
+        queue.clear();
+    }
+
+    private synchronized void drain() {
+        while (!disposed && running < concurrency && !queue.isEmpty()) {
+            PrefetchRequest request = queue.pollFirst();
+            running++;
+            executor.execute(() -> run(request));
+        }
+    }
+
+    private void run(PrefetchRequest request) {
+        try {
+            connectionService.prefetchChildren(request.connectionName, request.dn);
+        } catch (LDAPException e) {
+            // 預取失敗不影響使用者操作，展開時會再正常查詢
+        } finally {
+            synchronized (this) {
+                running--;
+            }
+            drain();
+        }
+    }
+
+    @Override
+    public synchronized void dispose() {
+        disposed = true;
+        queue.clear();
+    }
+
+    private static final class PrefetchRequest {
+        private final String connectionName;
+        private final String dn;
+        private final LdapTreeNode node;
+
+        private PrefetchRequest(String connectionName, String dn, LdapTreeNode node) {
+            this.connectionName = connectionName;
+            this.dn = dn;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.ldapplugin.ui.dialog;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextField;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldif.LDIFChangeRecord;
+import com.unboundid.ldif.LDIFException;
+import com.unboundid.ldif.LDIFModifyChangeRecord;
+import com.unboundid.ldif.LDIFReader;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批次修改對話框
+ * 修改內容以 LDIF changetype: modify 的格式輸入，例如：
+ * <pre>
+ * replace: description
+ * description: 新的描述
+ * -
+ * add: mail
+ * mail: user@example.com
+ * </pre>
+ */
+public class BatchModifyDialog extends DialogWrapper {
+    
+    private static final String[] SCOPE_NAMES = {"整個子樹", "僅下一層", "僅基礎條目"};
+    private static final SearchScope[] SCOPES = {SearchScope.SUB, SearchScope.ONE, SearchScope.BASE};
+    
+    private JBTextField baseDnField;
+    private JComboBox<String> scopeComboBox;
+    private JBTextField filterField;
+    private JTextArea modificationsArea;
+    
+    private final String initialBaseDn;
+    private List<Modification> modifications;
+    
+    public BatchModifyDialog(@Nullable Project project, String baseDn) {
+        super(project, true);
+        this.initialBaseDn = baseDn;
+        
+        setTitle("批次修改");
+        setResizable(true);
+        init();
+    }
+    
+    @Override
+    protected @Nullable JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setPreferredSize(new Dimension(600, 400));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        
+        // 基礎 DN
+        gbc.gridx = 0; gbc.gridy = 0; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("基礎 DN:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        baseDnField = new JBTextField(initialBaseDn);
+        panel.add(baseDnField, gbc);
+        
+        // 搜尋範圍
+        gbc.gridx = 0; gbc.gridy = 1; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("範圍:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        scopeComboBox = new ComboBox<>(SCOPE_NAMES);
+        panel.add(scopeComboBox, gbc);
+        
+        // 過濾條件
+        gbc.gridx = 0; gbc.gridy = 2; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("過濾條件:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        filterField = new JBTextField("(objectClass=*)");
+        panel.add(filterField, gbc);
+        
+        // 修改內容
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("修改內容（LDIF modify 格式，多個修改以 \"-\" 分隔）:"), gbc);
+        gbc.gridy = 4; gbc.fill = GridBagConstraints.BOTH; gbc.weightx = 1.0; gbc.weighty = 1.0;
+        modificationsArea = new JTextArea("# 例如：\n# replace: description\n# description: 新的描述\n");
+        modificationsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        panel.add(new JBScrollPane(modificationsArea), gbc);
+        
+        return panel;
+    }
+    
+    public String getBaseDn() {
+        return baseDnField.getText().trim();
+    }
+    
+    public SearchScope getScope() {
+        return SCOPES[scopeComboBox.getSelectedIndex()];
+    }
+    
+    public String getFilter() {
+        return filterField.getText().trim();
+    }
+    
+    /**
+     * 解析後的修改清單，按下確定後才有值
+     */
+    public List<Modification> getModifications() {
+        return modifications;
+    }
+    
+    private List<Modification> parseModifications() throws LDIFException {
+        // 加上虛擬的 DN 與 changetype，交給 LDIFReader 解析成修改記錄
+        List<String> lines = new ArrayList<>();
+        lines.add("dn: cn=batch");
+        lines.add("changetype: modify");
+        for (String line : modificationsArea.getText().split("\\r?\\n")) {
+            if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        if (lines.size() == 2) {
+            throw new LDIFException("請輸入修改內容", 0, false);
+        }
+        LDIFChangeRecord record = LDIFReader.decodeChangeRecord(lines.toArray(new String[0]));
+        if (!(record instanceof LDIFModifyChangeRecord)) {
+            throw new LDIFException("修改內容必須是 modify 記錄", 0, false);
+        }
+        List<Modification> result = Arrays.asList(((LDIFModifyChangeRecord) record).getModifications());
+        // 空值通常是誤填，套用到整個結果集時多數伺服器會逐筆以 invalidAttributeSyntax 拒絕
+        for (Modification modification : result) {
+            for (byte[] value : modification.getValueByteArrays()) {
+                if (value.length == 0) {
+                    throw new LDIFException("屬性 " + modification.getAttributeName() + " 的值不可為空", 0, false);
+                }
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    protected void doOKAction() {
+        if (!DN.isValidDN(getBaseDn())) {
+            Messages.showErrorDialog("基礎 DN 格式不正確", "錯誤");
+            baseDnField.requestFocus();
+            return;
+        }
+        
+        try {
+            Filter.create(getFilter());
+        } catch (LDAPException e) {
+            Messages.showErrorDialog("過濾條件格式不正確: " + e.getMessage(), "錯誤");
+            filterField.requestFocus();
+            return;
+        }
+        
+        try {
+            modifications = parseModifications();
+        } catch (LDIFException e) {
+            Messages.showErrorDialog("修改內容格式不正確: " + e.getMessage(), "錯誤");
+            modificationsArea.requestFocus();
+            return;
+        }
+        
+        super.doOKAction();
+    }
+}
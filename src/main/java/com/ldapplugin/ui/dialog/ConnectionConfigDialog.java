@@ -1,27 +1,52 @@
 package com.ldapplugin.ui.dialog;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.ui.components.JBTextField;
 import com.ldapplugin.model.LdapConnection;
+import com.ldapplugin.model.LdapServerAddress;
+import com.ldapplugin.model.LdapServerSelection;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * LDAP 連線配置對話框
  */
 public class ConnectionConfigDialog extends DialogWrapper {
     
+    private static final int MAX_READ_YOUR_WRITES_WINDOW_SECONDS = 300;
+    
     private JBTextField nameField;
     private JBTextField hostField;
     private JSpinner portSpinner;
+    private JBTextField additionalServersField;
+    private JComboBox<String> serverSelectionComboBox;
+    private JCheckBox readWriteSplitCheckBox;
+    private JSpinner readYourWritesWindowSpinner;
     private JBTextField bindDnField;
     private JPasswordField passwordField;
     private JCheckBox sslCheckBox;
     private JBTextField baseDnField;
+    private JCheckBox poolCheckBox;
+    private JSpinner initialPoolSizeSpinner;
+    private JSpinner maxPoolSizeSpinner;
+    private JSpinner maxConnectionAgeSpinner;
+    private JSpinner healthCheckIntervalSpinner;
+    private JSpinner pageSizeSpinner;
+    private JCheckBox liveUpdatesCheckBox;
+    private JSpinner maxChildrenSpinner;
+    private JCheckBox prefetchCheckBox;
+    private JSpinner prefetchChildCountSpinner;
+    private JSpinner prefetchConcurrencySpinner;
+    private JSpinner bulkMaxInFlightSpinner;
+    private JSpinner slowOperationThresholdSpinner;
+    private JSpinner slowOperationSampleRateSpinner;
     private JButton testButton;
     
     private LdapConnection connection;
@@ -67,8 +92,46 @@ public class ConnectionConfigDialog extends DialogWrapper {
         portSpinner = new JSpinner(new SpinnerNumberModel(389, 1, 65535, 1));
         panel.add(portSpinner, gbc);
         
-        // SSL
+        // 其他伺服器
         gbc.gridx = 0; gbc.gridy = 3; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("其他伺服器:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        additionalServersField = new JBTextField(20);
+        additionalServersField.setToolTipText("以逗號分隔的 host 或 host:port，例如 ldap2:389, ldap3；未指定端口時與主要伺服器相同");
+        panel.add(additionalServersField, gbc);
+        
+        // 伺服器選擇方式
+        gbc.gridx = 0; gbc.gridy = 4; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("伺服器選擇:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        LdapServerSelection[] selections = LdapServerSelection.values();
+        String[] selectionNames = new String[selections.length];
+        for (int i = 0; i < selections.length; i++) {
+            selectionNames[i] = selections[i].getDisplayName();
+        }
+        serverSelectionComboBox = new ComboBox<>(selectionNames);
+        serverSelectionComboBox.setToolTipText("只在設定其他伺服器時使用");
+        panel.add(serverSelectionComboBox, gbc);
+        
+        // 讀寫分離
+        gbc.gridx = 0; gbc.gridy = 5; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("讀寫分離:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        readWriteSplitCheckBox = new JCheckBox("主要伺服器負責寫入，其他伺服器負責讀取（需使用連線池）");
+        readWriteSplitCheckBox.addActionListener(e -> updatePoolFieldsEnabled());
+        panel.add(readWriteSplitCheckBox, gbc);
+        
+        // 寫入後改讀主要伺服器的時間（秒，0 表示停用）
+        gbc.gridx = 0; gbc.gridy = 6; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("寫入後讀取主要伺服器 (秒):"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        readYourWritesWindowSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) (LdapConnection.DEFAULT_READ_YOUR_WRITES_WINDOW_MILLIS / 1000), 0, MAX_READ_YOUR_WRITES_WINDOW_SECONDS, 1));
+        readYourWritesWindowSpinner.setToolTipText("條目寫入後在此時間內，涵蓋它的讀取改由主要伺服器處理，避免讀到尚未複寫的資料；0 表示停用");
+        panel.add(readYourWritesWindowSpinner, gbc);
+        
+        // SSL
+        gbc.gridx = 0; gbc.gridy = 7; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
         panel.add(new JLabel("使用 SSL:"), gbc);
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
         sslCheckBox = new JCheckBox();
@@ -82,44 +145,190 @@ public class ConnectionConfigDialog extends DialogWrapper {
         panel.add(sslCheckBox, gbc);
         
         // 綁定 DN
-        gbc.gridx = 0; gbc.gridy = 4; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        gbc.gridx = 0; gbc.gridy = 8; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
         panel.add(new JLabel("綁定 DN:"), gbc);
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
         bindDnField = new JBTextField(30);
         panel.add(bindDnField, gbc);
         
         // 密碼
-        gbc.gridx = 0; gbc.gridy = 5; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        gbc.gridx = 0; gbc.gridy = 9; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
         panel.add(new JLabel("密碼:"), gbc);
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
         passwordField = new JPasswordField(20);
         panel.add(passwordField, gbc);
         
         // 基礎 DN
-        gbc.gridx = 0; gbc.gridy = 6; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        gbc.gridx = 0; gbc.gridy = 10; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
         panel.add(new JLabel("基礎 DN:"), gbc);
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
         baseDnField = new JBTextField(30);
         panel.add(baseDnField, gbc);
         
+        // 連線池
+        gbc.gridx = 0; gbc.gridy = 11; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("使用連線池:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        poolCheckBox = new JCheckBox();
+        poolCheckBox.setSelected(true);
+        poolCheckBox.addActionListener(e -> updatePoolFieldsEnabled());
+        panel.add(poolCheckBox, gbc);
+        
+        // 初始連線數
+        gbc.gridx = 0; gbc.gridy = 12; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("初始連線數:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        initialPoolSizeSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_INITIAL_POOL_SIZE, 1, 100, 1));
+        panel.add(initialPoolSizeSpinner, gbc);
+        
+        // 最大連線數
+        gbc.gridx = 0; gbc.gridy = 13; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("最大連線數:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        maxPoolSizeSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_MAX_POOL_SIZE, 1, 100, 1));
+        panel.add(maxPoolSizeSpinner, gbc);
+        
+        // 連線最長存活時間（秒，0 表示不限制）
+        gbc.gridx = 0; gbc.gridy = 14; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("連線最長存活 (秒):"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        maxConnectionAgeSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) (LdapConnection.DEFAULT_MAX_CONNECTION_AGE_MILLIS / 1000), 0, 86400, 60));
+        panel.add(maxConnectionAgeSpinner, gbc);
+        
+        // 健康檢查間隔（秒）
+        gbc.gridx = 0; gbc.gridy = 15; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("健康檢查間隔 (秒):"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        healthCheckIntervalSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) (LdapConnection.DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS / 1000), 1, 3600, 10));
+        panel.add(healthCheckIntervalSpinner, gbc);
+        
+        // 分頁大小
+        gbc.gridx = 0; gbc.gridy = 16; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("分頁大小:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        pageSizeSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_PAGE_SIZE, 1, 10000, 100));
+        panel.add(pageSizeSpinner, gbc);
+        
+        // 即時更新
+        gbc.gridx = 0; gbc.gridy = 17; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("即時更新目錄樹:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        liveUpdatesCheckBox = new JCheckBox("使用 Persistent Search / AD 變更通知");
+        panel.add(liveUpdatesCheckBox, gbc);
+        
+        // 每個節點最多顯示的子節點數
+        gbc.gridx = 0; gbc.gridy = 18; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("節點子項上限:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        maxChildrenSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_MAX_CHILDREN_PER_NODE, 1, 100000, 500));
+        panel.add(maxChildrenSpinner, gbc);
+        
+        // 預取下一層
+        gbc.gridx = 0; gbc.gridy = 19; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("預取下一層:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        prefetchCheckBox = new JCheckBox("展開節點後於背景預取子節點的下一層");
+        prefetchCheckBox.addActionListener(e -> updatePrefetchFieldsEnabled());
+        panel.add(prefetchCheckBox, gbc);
+        
+        // 預取的子節點數
+        gbc.gridx = 0; gbc.gridy = 20; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("預取子節點數:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        prefetchChildCountSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_PREFETCH_CHILD_COUNT, 1, 50, 1));
+        panel.add(prefetchChildCountSpinner, gbc);
+        
+        // 預取同時查詢數
+        gbc.gridx = 0; gbc.gridy = 21; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("預取同時查詢數:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        prefetchConcurrencySpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_PREFETCH_CONCURRENCY, 1, 4, 1));
+        panel.add(prefetchConcurrencySpinner, gbc);
+        updatePrefetchFieldsEnabled();
+        
+        // 批次作業同時請求數
+        gbc.gridx = 0; gbc.gridy = 22; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("批次作業同時請求數:"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        bulkMaxInFlightSpinner = new JSpinner(new SpinnerNumberModel(LdapConnection.DEFAULT_BULK_MAX_IN_FLIGHT, 1, 1024, 16));
+        panel.add(bulkMaxInFlightSpinner, gbc);
+        
+        // 慢速操作門檻
+        gbc.gridx = 0; gbc.gridy = 23; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("慢速操作門檻 (毫秒，0 為停用):"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        slowOperationThresholdSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) LdapConnection.DEFAULT_SLOW_OPERATION_THRESHOLD_MILLIS, 0, 600000, 100));
+        panel.add(slowOperationThresholdSpinner, gbc);
+        
+        // 慢速操作取樣
+        gbc.gridx = 0; gbc.gridy = 24; gbc.fill = GridBagConstraints.NONE; gbc.weightx = 0;
+        panel.add(new JLabel("慢速操作取樣 (每 N 筆記錄 1 筆):"), gbc);
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
+        slowOperationSampleRateSpinner = new JSpinner(new SpinnerNumberModel(
+                LdapConnection.DEFAULT_SLOW_OPERATION_SAMPLE_RATE, 1, 10000, 1));
+        slowOperationSampleRateSpinner.setToolTipText("慢速操作頻繁時只保留部分紀錄，避免紀錄被大量相似的操作洗掉；1 表示全部記錄");
+        panel.add(slowOperationSampleRateSpinner, gbc);
+        
         // 測試連線按鈕
-        gbc.gridx = 0; gbc.gridy = 7; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE; gbc.anchor = GridBagConstraints.CENTER;
+        gbc.gridx = 0; gbc.gridy = 25; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE; gbc.anchor = GridBagConstraints.CENTER;
         testButton = new JButton("測試連線");
         testButton.addActionListener(e -> testConnection());
         panel.add(testButton, gbc);
+        updatePoolFieldsEnabled();
         
         return panel;
     }
     
+    private void updatePoolFieldsEnabled() {
+        boolean enabled = poolCheckBox.isSelected();
+        initialPoolSizeSpinner.setEnabled(enabled);
+        maxPoolSizeSpinner.setEnabled(enabled);
+        maxConnectionAgeSpinner.setEnabled(enabled);
+        healthCheckIntervalSpinner.setEnabled(enabled);
+        readWriteSplitCheckBox.setEnabled(enabled);
+        readYourWritesWindowSpinner.setEnabled(enabled && readWriteSplitCheckBox.isSelected());
+    }
+    
+    private void updatePrefetchFieldsEnabled() {
+        boolean enabled = prefetchCheckBox.isSelected();
+        prefetchChildCountSpinner.setEnabled(enabled);
+        prefetchConcurrencySpinner.setEnabled(enabled);
+    }
+    
     private void populateFields() {
         if (connection != null) {
             nameField.setText(connection.getName());
             hostField.setText(connection.getHost());
             portSpinner.setValue(connection.getPort());
+            additionalServersField.setText(String.join(", ", connection.getAdditionalServers()));
+            serverSelectionComboBox.setSelectedIndex(connection.getServerSelection().ordinal());
+            readWriteSplitCheckBox.setSelected(connection.isReadWriteSplit());
+            // 設定以毫秒保存，畫面以秒編輯：四捨五入到整秒並限制在可輸入的範圍內
+            long windowSeconds = Math.round(connection.getReadYourWritesWindowMillis() / 1000.0);
+            readYourWritesWindowSpinner.setValue((int) Math.max(0, Math.min(MAX_READ_YOUR_WRITES_WINDOW_SECONDS, windowSeconds)));
             bindDnField.setText(connection.getBindDn());
             passwordField.setText(connection.getPassword());
             sslCheckBox.setSelected(connection.isUseSSL());
             baseDnField.setText(connection.getBaseDn());
+            poolCheckBox.setSelected(connection.isUsePool());
+            initialPoolSizeSpinner.setValue(connection.getInitialPoolSize());
+            maxPoolSizeSpinner.setValue(connection.getMaxPoolSize());
+            maxConnectionAgeSpinner.setValue((int) (connection.getMaxConnectionAgeMillis() / 1000));
+            healthCheckIntervalSpinner.setValue((int) (connection.getHealthCheckIntervalMillis() / 1000));
+            pageSizeSpinner.setValue(connection.getPageSize());
+            liveUpdatesCheckBox.setSelected(connection.isLiveUpdates());
+            maxChildrenSpinner.setValue(connection.getMaxChildrenPerNode());
+            prefetchCheckBox.setSelected(connection.isPrefetchEnabled());
+            prefetchChildCountSpinner.setValue(connection.getPrefetchChildCount());
+            prefetchConcurrencySpinner.setValue(connection.getPrefetchConcurrency());
+            bulkMaxInFlightSpinner.setValue(connection.getBulkMaxInFlight());
+            slowOperationThresholdSpinner.setValue((int) connection.getSlowOperationThresholdMillis());
+            slowOperationSampleRateSpinner.setValue(Math.max(1, Math.min(10000, connection.getSlowOperationSampleRate())));
+            updatePrefetchFieldsEnabled();
+            updatePoolFieldsEnabled();
         }
     }
     
@@ -172,7 +381,49 @@ public class ConnectionConfigDialog extends DialogWrapper {
         int port = (Integer) portSpinner.getValue();
         boolean useSSL = sslCheckBox.isSelected();
         
-        return new LdapConnection(name, host, port, bindDn, password, useSSL, baseDn);
+        List<String> additionalServers = new ArrayList<>();
+        for (String server : additionalServersField.getText().split("[,\\s]+")) {
+            if (server.isEmpty()) {
+                continue;
+            }
+            try {
+                LdapServerAddress.parse(server, port);
+                additionalServers.add(server);
+            } catch (IllegalArgumentException e) {
+                Messages.showErrorDialog(e.getMessage(), "錯誤");
+                additionalServersField.requestFocus();
+                return null;
+            }
+        }
+        int initialPoolSize = (Integer) initialPoolSizeSpinner.getValue();
+        int maxPoolSize = (Integer) maxPoolSizeSpinner.getValue();
+        
+        if (poolCheckBox.isSelected() && maxPoolSize < initialPoolSize) {
+            Messages.showErrorDialog("最大連線數不可小於初始連線數", "錯誤");
+            maxPoolSizeSpinner.requestFocus();
+            return null;
+        }
+        
+        LdapConnection result = new LdapConnection(name, host, port, bindDn, password, useSSL, baseDn);
+        result.setAdditionalServers(additionalServers);
+        result.setServerSelection(LdapServerSelection.values()[serverSelectionComboBox.getSelectedIndex()]);
+        result.setReadWriteSplit(readWriteSplitCheckBox.isSelected());
+        result.setReadYourWritesWindowMillis((Integer) readYourWritesWindowSpinner.getValue() * 1000L);
+        result.setUsePool(poolCheckBox.isSelected());
+        result.setInitialPoolSize(initialPoolSize);
+        result.setMaxPoolSize(maxPoolSize);
+        result.setMaxConnectionAgeMillis((Integer) maxConnectionAgeSpinner.getValue() * 1000L);
+        result.setHealthCheckIntervalMillis((Integer) healthCheckIntervalSpinner.getValue() * 1000L);
+        result.setPageSize((Integer) pageSizeSpinner.getValue());
+        result.setLiveUpdates(liveUpdatesCheckBox.isSelected());
+        result.setMaxChildrenPerNode((Integer) maxChildrenSpinner.getValue());
+        result.setPrefetchEnabled(prefetchCheckBox.isSelected());
+        result.setPrefetchChildCount((Integer) prefetchChildCountSpinner.getValue());
+        result.setPrefetchConcurrency((Integer) prefetchConcurrencySpinner.getValue());
+        result.setBulkMaxInFlight((Integer) bulkMaxInFlightSpinner.getValue());
+        result.setSlowOperationThresholdMillis((Integer) slowOperationThresholdSpinner.getValue());
+        result.setSlowOperationSampleRate((Integer) slowOperationSampleRateSpinner.getValue());
+        return result;
     }
     
     @Override
@@ -6,8 +6,10 @@ import com.intellij.openapi.ui.Messages;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.components.JBTextField;
 import com.intellij.ui.table.JBTable;
+import com.ldapplugin.service.LdapSchemaSupport;
 import com.unboundid.ldap.sdk.Attribute;
 import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.schema.Schema;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
@@ -26,13 +28,18 @@ import java.util.List;
 public class EntryEditDialog extends DialogWrapper {
     
     private final Entry originalEntry;
+    private final Schema schema;
     private JBTable attributeTable;
     private AttributeTableModel tableModel;
     private JLabel dnLabel;
     
-    public EntryEditDialog(@Nullable Project project, Entry entry) {
+    /**
+     * @param schema 連線的結構描述，用來判斷單值、二進位與唯讀屬性；可為 null
+     */
+    public EntryEditDialog(@Nullable Project project, Entry entry, @Nullable Schema schema) {
         super(project, true);
         this.originalEntry = entry;
+        this.schema = schema;
         
         setTitle("編輯 LDAP 條目");
         setResizable(true);
@@ -74,7 +81,7 @@ public class EntryEditDialog extends DialogWrapper {
     }
     
     private void createAttributeTable() {
-        tableModel = new AttributeTableModel(originalEntry);
+        tableModel = new AttributeTableModel(originalEntry, schema);
         attributeTable = new JBTable(tableModel);
         
         // 設置欄位寬度
@@ -149,15 +156,22 @@ public class EntryEditDialog extends DialogWrapper {
         private final String[] columnNames = {"屬性名稱", "值", "多值"};
         private final List<AttributeRow> attributes = new ArrayList<>();
         private final Entry originalEntry;
+        private final Schema schema;
         private boolean modified = false;
         
-        public AttributeTableModel(Entry entry) {
+        public AttributeTableModel(Entry entry, Schema schema) {
             this.originalEntry = entry;
+            this.schema = schema;
             loadAttributes();
         }
         
         private void loadAttributes() {
             for (Attribute attr : originalEntry.getAttributes()) {
+                if (LdapSchemaSupport.isBinary(schema, attr)) {
+                    // 二進位值無法以字串往返，保留原始屬性不開放編輯
+                    attributes.add(new AttributeRow(attr));
+                    continue;
+                }
                 String[] values = attr.getValues();
                 if (values.length == 1) {
                     attributes.add(new AttributeRow(attr.getName(), values[0], false));
@@ -192,11 +206,15 @@ public class EntryEditDialog extends DialogWrapper {
         
         @Override
         public boolean isCellEditable(int rowIndex, int columnIndex) {
-            // DN 屬性不可編輯
-            String attrName = attributes.get(rowIndex).name;
+            // DN 屬性、二進位屬性與伺服器維護的屬性不可編輯
+            AttributeRow row = attributes.get(rowIndex);
+            String attrName = row.name;
             if ("dn".equalsIgnoreCase(attrName) || "distinguishedName".equalsIgnoreCase(attrName)) {
                 return false;
             }
+            if (row.binaryAttribute != null || LdapSchemaSupport.isNoUserModification(schema, attrName)) {
+                return false;
+            }
             // 屬性名稱和值可以編輯，多值標記不可編輯
             return columnIndex != 2;
         }
@@ -222,8 +240,7 @@ public class EntryEditDialog extends DialogWrapper {
                     break;
                 case 1:
                     row.value = (String) aValue;
-                    // 檢查是否為多值（包含分號分隔符）
-                    row.isMultiValue = ((String) aValue).contains(";");
+                    row.isMultiValue = isMultiValueInput(row.name, row.value);
                     modified = true;
                     break;
             }
@@ -234,7 +251,7 @@ public class EntryEditDialog extends DialogWrapper {
         }
         
         public void addAttribute(String name, String value) {
-            attributes.add(new AttributeRow(name, value, value.contains(";")));
+            attributes.add(new AttributeRow(name, value, isMultiValueInput(name, value)));
             modified = true;
             fireTableRowsInserted(attributes.size() - 1, attributes.size() - 1);
         }
@@ -251,11 +268,39 @@ public class EntryEditDialog extends DialogWrapper {
             return modified;
         }
         
+        /**
+         * 輸入的值是否以分號分隔多個值；結構描述定義為單值的屬性一律視為單一值
+         */
+        private boolean isMultiValueInput(String name, String value) {
+            return !LdapSchemaSupport.isSingleValued(schema, name) && value.contains(";");
+        }
+        
+        /**
+         * 此列目前是否有多個值
+         */
+        boolean isMultiValueRow(int rowIndex) {
+            return attributes.get(rowIndex).isMultiValue;
+        }
+        
+        /**
+         * 此列的屬性是否允許編輯多個值；結構描述沒有定義時依目前的值判斷
+         */
+        boolean allowsMultipleValues(int rowIndex) {
+            AttributeRow row = attributes.get(rowIndex);
+            if (row.binaryAttribute != null) {
+                return false;
+            }
+            Boolean multiValued = LdapSchemaSupport.isMultiValued(schema, row.name);
+            return multiValued != null ? multiValued : row.isMultiValue;
+        }
+        
         public Entry createModifiedEntry() {
             List<Attribute> attrs = new ArrayList<>();
             
             for (AttributeRow row : attributes) {
-                if (row.isMultiValue) {
+                if (row.binaryAttribute != null) {
+                    attrs.add(row.binaryAttribute);
+                } else if (row.isMultiValue) {
                     String[] values = row.value.split(";");
                     for (int i = 0; i < values.length; i++) {
                         values[i] = values[i].trim();
@@ -273,12 +318,26 @@ public class EntryEditDialog extends DialogWrapper {
             String name;
             String value;
             boolean isMultiValue;
+            Attribute binaryAttribute;
             
             public AttributeRow(String name, String value, boolean isMultiValue) {
                 this.name = name;
                 this.value = value;
                 this.isMultiValue = isMultiValue;
             }
+            
+            public AttributeRow(Attribute binaryAttribute) {
+                this(binaryAttribute.getName(), describeBinary(binaryAttribute), binaryAttribute.size() > 1);
+                this.binaryAttribute = binaryAttribute;
+            }
+            
+            private static String describeBinary(Attribute attribute) {
+                long totalBytes = 0;
+                for (byte[] value : attribute.getValueByteArrays()) {
+                    totalBytes += value.length;
+                }
+                return "<二進位資料 " + attribute.size() + " 個值，共 " + totalBytes + " 位元組>";
+            }
         }
     }
     
@@ -290,7 +349,8 @@ public class EntryEditDialog extends DialogWrapper {
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
             
-            if (value != null && value.toString().contains(";")) {
+            AttributeTableModel model = (AttributeTableModel) table.getModel();
+            if (model.isMultiValueRow(table.convertRowIndexToModel(row))) {
                 setToolTipText("多值屬性，使用分號(;)分隔");
                 setForeground(isSelected ? Color.WHITE : Color.BLUE);
             } else {
@@ -334,7 +394,8 @@ public class EntryEditDialog extends DialogWrapper {
             textField.setText(currentValue);
             
             // 如果是多值屬性，顯示編輯按鈕
-            if (currentValue.contains(";")) {
+            AttributeTableModel model = (AttributeTableModel) table.getModel();
+            if (model.allowsMultipleValues(table.convertRowIndexToModel(row))) {
                 return panel;
             } else {
                 return textField;
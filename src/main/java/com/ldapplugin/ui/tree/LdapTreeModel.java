@@ -1,6 +1,14 @@
 package com.ldapplugin.ui.tree;
 
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+
 import javax.swing.tree.DefaultTreeModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * LDAP 樹狀模型
@@ -11,8 +19,155 @@ public class LdapTreeModel extends DefaultTreeModel {
         super(new LdapTreeNode("未連線", null));
     }
     
+    /**
+     * 替換根節點；DefaultTreeModel 已會發出結構變更事件，不需再 reload
+     */
     public void setRoot(LdapTreeNode root) {
         super.setRoot(root);
-        reload();
+    }
+    
+    /**
+     * 以新的子節點清單更新父節點，依 DN 比對既有子節點
+     * 只針對差異發出 nodesWereRemoved / nodesWereInserted / nodesChanged，保留的節點沿用原物件，
+     * 因此其子樹、展開狀態與選取都不受影響；placeholder 與載入中節點不會被沿用
+     *
+     * @return 沿用下來的既有子節點
+     */
+    public List<LdapTreeNode> updateChildren(LdapTreeNode parent, List<LdapTreeNode> newChildren) {
+        Map<DN, LdapTreeNode> incoming = new HashMap<>();
+        for (LdapTreeNode child : newChildren) {
+            DN key = child.isEntryNode() ? child.getParsedDn() : null;
+            if (key != null) {
+                incoming.put(key, child);
+            }
+        }
+        
+        // 移除不再存在的子節點（由後往前，索引以移除前為準）
+        Map<DN, LdapTreeNode> retained = new HashMap<>();
+        List<Integer> removedIndices = new ArrayList<>();
+        List<Object> removedNodes = new ArrayList<>();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            LdapTreeNode child = (LdapTreeNode) parent.getChildAt(i);
+            DN key = child.isEntryNode() ? child.getParsedDn() : null;
+            if (key != null && incoming.containsKey(key) && !retained.containsKey(key)) {
+                retained.put(key, child);
+            } else {
+                removedIndices.add(i);
+                removedNodes.add(child);
+            }
+        }
+        for (int i = removedIndices.size() - 1; i >= 0; i--) {
+            parent.remove(removedIndices.get(i));
+        }
+        if (!removedIndices.isEmpty()) {
+            nodesWereRemoved(parent, toIntArray(removedIndices), removedNodes.toArray());
+        }
+        
+        // 更新保留節點的摘要，並把新節點插在前一個保留節點之後，維持伺服器回傳的相對順序
+        List<LdapTreeNode> kept = new ArrayList<>();
+        List<LdapTreeNode> changed = new ArrayList<>();
+        List<LdapTreeNode> inserted = new ArrayList<>();
+        int position = 0;
+        for (LdapTreeNode child : newChildren) {
+            DN key = child.isEntryNode() ? child.getParsedDn() : null;
+            LdapTreeNode existing = key != null ? retained.remove(key) : null;
+            if (existing != null) {
+                if (existing.copyHeaderFrom(child)) {
+                    changed.add(existing);
+                }
+                kept.add(existing);
+                position = parent.getIndex(existing) + 1;
+            } else {
+                parent.insert(child, position++);
+                inserted.add(child);
+            }
+        }
+        if (!inserted.isEmpty()) {
+            nodesWereInserted(parent, indicesOf(parent, inserted));
+        }
+        if (!changed.isEmpty()) {
+            nodesChanged(parent, indicesOf(parent, changed));
+        }
+        return kept;
+    }
+    
+    private static int[] indicesOf(LdapTreeNode parent, List<LdapTreeNode> children) {
+        int[] indices = new int[children.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = parent.getIndex(children.get(i));
+        }
+        Arrays.sort(indices);
+        return indices;
+    }
+    
+    private static int[] toIntArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * 依 DN 尋找已載入的節點，沿著 DN 階層由根節點往下比對；找不到時回傳 null
+     */
+    public LdapTreeNode findNode(String dn) {
+        DN target;
+        try {
+            target = new DN(dn);
+        } catch (LDAPException e) {
+            return null;
+        }
+        if (!(getRoot() instanceof LdapTreeNode)) {
+            return null;
+        }
+        
+        LdapTreeNode current = (LdapTreeNode) getRoot();
+        DN rootDn = current.getParsedDn();
+        if (rootDn == null || !target.isDescendantOf(rootDn, true)) {
+            return null;
+        }
+        
+        while (!target.equals(current.getParsedDn())) {
+            LdapTreeNode next = null;
+            for (int i = 0; i < current.getChildCount(); i++) {
+                LdapTreeNode child = (LdapTreeNode) current.getChildAt(i);
+                DN childDn = child.isEntryNode() ? child.getParsedDn() : null;
+                if (childDn != null && target.isDescendantOf(childDn, true)) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            current = next;
+        }
+        return current;
+    }
+    
+    /**
+     * 在父節點的條目子節點之後插入子節點（「載入後續」等提示節點保持在最後），只通知插入的位置
+     */
+    public void insertChild(LdapTreeNode parent, LdapTreeNode child) {
+        int index = parent.getChildCount();
+        while (index > 0 && !((LdapTreeNode) parent.getChildAt(index - 1)).isEntryNode()) {
+            index--;
+        }
+        insertNodeInto(child, parent, index);
+    }
+    
+    /**
+     * 取得父節點下對應條目的子節點（不含 placeholder 與提示節點）
+     */
+    public List<LdapTreeNode> getEntryChildren(LdapTreeNode parent) {
+        List<LdapTreeNode> children = new ArrayList<>(parent.getChildCount());
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            LdapTreeNode child = (LdapTreeNode) parent.getChildAt(i);
+            if (child.isEntryNode()) {
+                children.add(child);
+            }
+        }
+        return children;
     }
 }
@@ -1,69 +1,215 @@
 package com.ldapplugin.ui.tree;
 
+import com.unboundid.ldap.sdk.DN;
 import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.RDN;
 
 import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.Objects;
 
 /**
  * LDAP 樹狀節點
+ * 節點只保留顯示所需的摘要（DN、名稱與 objectClass 旗標），完整條目於選取時再向伺服器取得
  */
 public class LdapTreeNode extends DefaultMutableTreeNode {
     
+    public static final String PLACEHOLDER_TEXT = "...";
+    public static final String LOADING_TEXT = "載入中...";
+    public static final String ROOT_TEXT = "根目錄";
+    
     private final String displayName;
-    private Entry entry;
     private final String dn;
+    private final boolean entryNode;
+    private String label;
+    private boolean organizationalUnit;
+    private boolean user;
+    // 伺服器未提供子條目資訊時為 null
+    private Boolean hasSubordinates;
+    private int subordinateCount = -1;
+    private boolean approximateCount;
     private boolean childrenLoaded;
+    private boolean loading;
+    private boolean loadMoreNode;
+    private DN parsedDn;
     
     public LdapTreeNode(String displayName, Entry entry) {
+        this(displayName, entry != null ? entry.getDN() : displayName, entry);
+    }
+    
+    private LdapTreeNode(String displayName, String dn, Entry entry) {
         super(displayName);
         this.displayName = displayName;
-        this.entry = entry;
-        this.dn = entry != null ? entry.getDN() : displayName;
+        this.entryNode = entry != null;
+        this.dn = dn;
         this.childrenLoaded = false;
+        if (entry != null) {
+            updateHeader(entry);
+        }
     }
     
-    public String getDisplayName() {
-        if (entry != null) {
-            // 嘗試取得更友善的顯示名稱
-            String cn = entry.getAttributeValue("cn");
-            if (cn != null) {
-                return cn;
-            }
-            
-            String ou = entry.getAttributeValue("ou");
-            if (ou != null) {
-                return ou;
-            }
-            
-            String uid = entry.getAttributeValue("uid");
-            if (uid != null) {
-                return uid;
-            }
-            
-            // 如果沒有友善名稱，使用 DN 的第一部分
-            String dn = entry.getDN();
-            if (dn != null && !dn.isEmpty()) {
-                String[] parts = dn.split(",");
-                if (parts.length > 0) {
-                    String firstPart = parts[0].trim();
-                    if (firstPart.contains("=")) {
-                        return firstPart.substring(firstPart.indexOf("=") + 1);
-                    }
-                }
-            }
+    /**
+     * 建立代表基礎 DN 的根節點
+     */
+    public static LdapTreeNode createRootNode(String baseDn) {
+        return new LdapTreeNode(baseDn.isEmpty() ? ROOT_TEXT : baseDn, baseDn, null);
+    }
+    
+    /**
+     * 以條目內容更新節點摘要
+     */
+    public void updateHeader(Entry entry) {
+        this.label = resolveLabel(entry);
+        this.organizationalUnit = entry.hasObjectClass("organizationalUnit");
+        this.user = entry.hasObjectClass("person") || entry.hasObjectClass("user");
+        
+        // 子條目數：numSubordinates 為精確值，AD 的 msDS-Approx-Immed-Subordinates 為概數
+        Integer count = entry.getAttributeValueAsInteger("numSubordinates");
+        this.approximateCount = false;
+        if (count == null) {
+            count = entry.getAttributeValueAsInteger("msDS-Approx-Immed-Subordinates");
+            this.approximateCount = count != null;
+        }
+        this.subordinateCount = count != null ? count : -1;
+        
+        Boolean has = entry.getAttributeValueAsBoolean("hasSubordinates");
+        if (has == null && count != null) {
+            has = count > 0;
+        }
+        this.hasSubordinates = has;
+    }
+    
+    /**
+     * 以另一個代表相同條目的節點更新摘要
+     *
+     * @return 顯示內容是否有變化
+     */
+    public boolean copyHeaderFrom(LdapTreeNode other) {
+        boolean changed = !Objects.equals(label, other.label)
+                || organizationalUnit != other.organizationalUnit
+                || user != other.user
+                || !Objects.equals(hasSubordinates, other.hasSubordinates)
+                || subordinateCount != other.subordinateCount;
+        this.label = other.label;
+        this.organizationalUnit = other.organizationalUnit;
+        this.user = other.user;
+        this.hasSubordinates = other.hasSubordinates;
+        this.subordinateCount = other.subordinateCount;
+        this.approximateCount = other.approximateCount;
+        return changed;
+    }
+    
+    private static String resolveLabel(Entry entry) {
+        // 嘗試取得更友善的顯示名稱
+        String cn = entry.getAttributeValue("cn");
+        if (cn != null) {
+            return cn;
+        }
+        
+        String ou = entry.getAttributeValue("ou");
+        if (ou != null) {
+            return ou;
+        }
+        
+        String uid = entry.getAttributeValue("uid");
+        if (uid != null) {
+            return uid;
         }
         
+        // 如果沒有友善名稱，使用 RDN 的值
+        return getRdnValue(entry.getDN());
+    }
+    
+    private static String getRdnValue(String dn) {
+        if (dn == null || dn.isEmpty()) {
+            return dn;
+        }
+        try {
+            RDN rdn = new DN(dn).getRDN();
+            if (rdn != null && rdn.getAttributeValues().length > 0) {
+                return rdn.getAttributeValues()[0];
+            }
+        } catch (LDAPException e) {
+            // DN 無法解析時退回字串切割
+        }
+        String firstPart = dn.split(",")[0].trim();
+        if (firstPart.contains("=")) {
+            return firstPart.substring(firstPart.indexOf("=") + 1);
+        }
+        return dn;
+    }
+    
+    public String getDisplayName() {
+        if (entryNode && label != null) {
+            return label;
+        }
         return displayName;
     }
     
-    public Entry getEntry() {
-        return entry;
+    /**
+     * 是否為對應 LDAP 條目的節點（根節點與 placeholder 不是）
+     */
+    public boolean isEntryNode() {
+        return entryNode;
+    }
+    
+    public boolean isOrganizationalUnit() {
+        return organizationalUnit;
+    }
+    
+    /**
+     * 檢查節點是否為用戶條目
+     */
+    public boolean isUserNode() {
+        return user;
+    }
+    
+    /**
+     * 節點是否可能有子條目
+     * 伺服器提供 hasSubordinates 或子條目數時依其判斷，否則退回以 objectClass 推測（用戶條目視為葉節點）
+     */
+    public boolean isExpandable() {
+        if (hasSubordinates != null) {
+            return hasSubordinates;
+        }
+        return !user;
+    }
+    
+    /**
+     * 伺服器提供的子條目數（可能為概數），未提供時為 -1
+     */
+    public int getSubordinateCount() {
+        return subordinateCount;
+    }
+    
+    /**
+     * 子條目數的顯示文字，例如「(12)」或概數「(~12)」；伺服器未提供時為空字串
+     */
+    public String getSubordinateCountText() {
+        if (subordinateCount < 0) {
+            return "";
+        }
+        return approximateCount ? "(~" + subordinateCount + ")" : "(" + subordinateCount + ")";
     }
     
     public String getDn() {
         return dn;
     }
     
+    /**
+     * 取得解析後的 DN，供比對使用；無法解析（如 placeholder）時回傳 null
+     */
+    public DN getParsedDn() {
+        if (parsedDn == null && dn != null) {
+            try {
+                parsedDn = new DN(dn);
+            } catch (LDAPException e) {
+                return null;
+            }
+        }
+        return parsedDn;
+    }
+    
     public boolean isChildrenLoaded() {
         return childrenLoaded;
     }
@@ -72,8 +218,46 @@ public class LdapTreeNode extends DefaultMutableTreeNode {
         this.childrenLoaded = childrenLoaded;
     }
     
-    public void setEntry(Entry entry) {
-        this.entry = entry;
+    public boolean isLoading() {
+        return loading;
+    }
+    
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+    }
+    
+    /**
+     * 建立尚未展開節點使用的 placeholder
+     */
+    public static LdapTreeNode createPlaceholder() {
+        return new LdapTreeNode(PLACEHOLDER_TEXT, null);
+    }
+    
+    /**
+     * 建立背景載入期間顯示的節點
+     */
+    public static LdapTreeNode createLoadingNode() {
+        return new LdapTreeNode(LOADING_TEXT, null);
+    }
+    
+    /**
+     * 建立「載入後續」節點，點選或捲動到此節點時載入下一頁子節點
+     */
+    public static LdapTreeNode createLoadMoreNode(int pageSize) {
+        LdapTreeNode node = new LdapTreeNode("載入後續 " + pageSize + " 筆...", null);
+        node.loadMoreNode = true;
+        return node;
+    }
+    
+    /**
+     * 建立子節點數量已達上限時顯示的提示節點
+     */
+    public static LdapTreeNode createLimitNode(int limit) {
+        return new LdapTreeNode("已達顯示上限 " + limit + " 筆，請改用搜尋縮小範圍", null);
+    }
+    
+    public boolean isLoadMoreNode() {
+        return loadMoreNode;
     }
     
     @Override